@@ -0,0 +1,99 @@
+package io.aexp.concurrency.middlemanager.ibm;
+
+import com.ibm.websphere.asynchbeans.Work;
+import com.ibm.websphere.asynchbeans.WorkEvent;
+import com.ibm.websphere.asynchbeans.WorkException;
+import com.ibm.websphere.asynchbeans.WorkListener;
+import com.ibm.websphere.asynchbeans.WorkManager;
+import io.aexp.concurrency.middlemanager.NotifyingFutureTask;
+import io.aexp.concurrency.middlemanager.RejectedWorkException;
+import io.aexp.concurrency.middlemanager.WorkExecutorBase;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import javax.annotation.Nonnull;
+
+/**
+ * Baseline for {@link WorkManagerSubmitBenchmark}: WorkManagerWorkExecutor's submission path before it was fused into
+ * a single object, i.e. a FutureTask (plus the adapter FutureTask makes for runnables) and a separate Work/WorkListener
+ * wrapper per submission.
+ */
+final class FutureTaskWorkManagerWorkExecutor extends WorkExecutorBase {
+    private final WorkManager workManager;
+
+    FutureTaskWorkManagerWorkExecutor(WorkManager workManager) {
+        this.workManager = workManager;
+    }
+
+    @Nonnull
+    @Override
+    public <T extends Runnable> Future<T> submit(T runnable) {
+        return run(new Task<T>(runnable, runnable));
+    }
+
+    @Nonnull
+    @Override
+    public <T> Future<T> submit(Callable<T> callable) {
+        return run(new Task<T>(callable));
+    }
+
+    private <T> Future<T> run(Task<T> task) {
+        WorkWrapper work = new WorkWrapper(task);
+        try {
+            workManager.startWork(work, WorkManager.INDEFINITE, work);
+        } catch (WorkException e) {
+            throw new RejectedWorkException("Could not schedule Work", e);
+        }
+        return task;
+    }
+
+    private static final class Task<T> extends NotifyingFutureTask<T> {
+        Task(Callable<T> callable) {
+            super(callable);
+        }
+
+        Task(Runnable runnable, T result) {
+            super(runnable, result);
+        }
+
+        void fail(Throwable t) {
+            setException(t);
+        }
+    }
+
+    private static final class WorkWrapper implements Work, WorkListener {
+        private final Task<?> task;
+
+        WorkWrapper(Task<?> task) {
+            this.task = task;
+        }
+
+        @Override
+        public void release() {
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public void workAccepted(WorkEvent event) {
+        }
+
+        @Override
+        public void workRejected(WorkEvent event) {
+            task.fail(new RejectedWorkException("WorkManager rejected Work", event.getException()));
+        }
+
+        @Override
+        public void workStarted(WorkEvent event) {
+        }
+
+        @Override
+        public void workCompleted(WorkEvent event) {
+            if (!task.isDone()) {
+                task.fail(new IllegalStateException("WorkManager completed Work without running it"));
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package io.aexp.concurrency.middlemanager.ibm;
+
+import com.ibm.websphere.asynchbeans.AsynchScope;
+import com.ibm.websphere.asynchbeans.EventSource;
+import com.ibm.websphere.asynchbeans.Work;
+import com.ibm.websphere.asynchbeans.WorkItem;
+import com.ibm.websphere.asynchbeans.WorkListener;
+import com.ibm.websphere.asynchbeans.WorkManager;
+import com.ibm.websphere.asynchbeans.WorkWithExecutionContext;
+import java.util.ArrayList;
+
+/**
+ * Runs Work on the calling thread and allocates nothing itself, so that allocation measured around startWork is the
+ * WorkExecutor's own. Returns no WorkItems, so waiting can't use join.
+ */
+final class InlineWorkManager implements WorkManager {
+
+    @Override
+    public WorkItem startWork(Work work, long l, WorkListener workListener) {
+        workListener.workAccepted(null);
+        workListener.workStarted(null);
+        try {
+            work.run();
+        } finally {
+            workListener.workCompleted(null);
+        }
+        return null;
+    }
+
+    @Override
+    public WorkItem startWork(WorkWithExecutionContext workWithExecutionContext) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public WorkItem startWork(WorkWithExecutionContext workWithExecutionContext, boolean b) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public WorkItem startWork(WorkWithExecutionContext workWithExecutionContext, long l,
+            WorkListener workListener) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public WorkItem startWork(WorkWithExecutionContext workWithExecutionContext, long l,
+            WorkListener workListener, boolean b) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public WorkItem startWork(Work work) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public WorkItem startWork(Work work, boolean b) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public WorkItem startWork(Work work, long l, WorkListener workListener, boolean b) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void doWork(WorkWithExecutionContext workWithExecutionContext) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void doWork(WorkWithExecutionContext workWithExecutionContext, WorkListener workListener) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void doWork(Work work) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void doWork(Work work, WorkListener workListener) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean join(ArrayList arrayList, boolean b, int i) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public WorkWithExecutionContext create(Work work) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public EventSource createEventSource() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AsynchScope createAsynchScope(String s) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AsynchScope findAsynchScope(String s) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AsynchScope findOrCreateAsynchScope(String s) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addListener(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addListener(Object o, int i) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeListener(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object getEventTrigger(Class aClass) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object getEventTrigger(Class aClass, boolean b) {
+        throw new UnsupportedOperationException();
+    }
+}
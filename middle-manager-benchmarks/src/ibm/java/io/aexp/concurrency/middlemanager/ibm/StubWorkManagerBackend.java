@@ -0,0 +1,18 @@
+package io.aexp.concurrency.middlemanager.ibm;
+
+import io.aexp.concurrency.middlemanager.WorkExecutor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Lets the benchmarks build a WorkManagerWorkExecutor over the (package-private) stub WorkManager from the IBM
+ * subproject's tests. Looked up reflectively so the benchmarks still build without the IBM subproject.
+ */
+public final class StubWorkManagerBackend {
+
+    private StubWorkManagerBackend() {
+    }
+
+    public static WorkExecutor create(ExecutorService executorService) {
+        return new WorkManagerWorkExecutor(new StubWorkManager(executorService));
+    }
+}
@@ -0,0 +1,80 @@
+package io.aexp.concurrency.middlemanager.ibm;
+
+import io.aexp.concurrency.middlemanager.WorkExecutor;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a WorkManagerWorkExecutor submission, with the single fused task object versus the previous FutureTask plus
+ * Work wrapper. Work runs inline on a WorkManager that allocates nothing, so run with {@code -prof gc} and compare
+ * {@code gc.alloc.rate.norm}: that's the bytes allocated per submission by the executor alone.
+ *
+ * <pre>
+ * ./gradlew :middle-manager-benchmarks:jmh -PjmhArgs='WorkManagerSubmitBenchmark -prof gc'
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WorkManagerSubmitBenchmark {
+
+    @Param({"FUSED", "FUTURE_TASK"})
+    public Task task;
+
+    private WorkExecutor workExecutor;
+
+    @Setup
+    public void setUp() {
+        workExecutor = task == Task.FUSED ? new WorkManagerWorkExecutor(new InlineWorkManager())
+                : new FutureTaskWorkManagerWorkExecutor(new InlineWorkManager());
+    }
+
+    @Benchmark
+    public Future<?> submitRunnable() {
+        return workExecutor.submit((Runnable) NoOp.INSTANCE);
+    }
+
+    @Benchmark
+    public Future<?> submitCallable() {
+        return workExecutor.submit((Callable<Object>) NoOp.INSTANCE);
+    }
+
+    public enum Task {
+        /**
+         * WorkManagerWorkExecutor as it is.
+         */
+        FUSED,
+        /**
+         * {@link FutureTaskWorkManagerWorkExecutor}.
+         */
+        FUTURE_TASK
+    }
+
+    static final class NoOp implements Runnable, Callable<Object> {
+        static final NoOp INSTANCE = new NoOp();
+
+        @Override
+        public void run() {
+        }
+
+        @Override
+        public Object call() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.aexp.concurrency.middlemanager.benchmarks;
+
+import io.aexp.concurrency.middlemanager.ExecutorServiceWorkExecutor;
+import io.aexp.concurrency.middlemanager.WorkExecutor;
+import io.aexp.concurrency.middlemanager.jdk21.VirtualThreadWorkExecutor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to get through a burst of blocking tasks, standing in for I/O-bound work, with one virtual thread per task
+ * versus an ExecutorService pool.
+ *
+ * Each task sleeps for {@code blockMillis}, so the ideal is one {@code blockMillis} per burst regardless of size; a
+ * pool of {@code poolSize} threads needs at least {@code tasks / poolSize} rounds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class VirtualThreadBenchmark {
+
+    @Param({"VIRTUAL_THREADS", "FIXED_POOL", "CACHED_POOL"})
+    public Kind kind;
+
+    @Param({"10000", "50000"})
+    public int tasks;
+
+    @Param({"200"})
+    public int poolSize;
+
+    @Param({"10"})
+    public int blockMillis;
+
+    private ExecutorService executorService;
+    private WorkExecutor workExecutor;
+    private Callable<Void> blockingTask;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (kind) {
+            case VIRTUAL_THREADS:
+                workExecutor = new VirtualThreadWorkExecutor();
+                break;
+            case FIXED_POOL:
+                executorService = Executors.newFixedThreadPool(poolSize);
+                workExecutor = new ExecutorServiceWorkExecutor(executorService);
+                break;
+            case CACHED_POOL:
+                executorService = Executors.newCachedThreadPool();
+                workExecutor = new ExecutorServiceWorkExecutor(executorService);
+                break;
+            default:
+                throw new IllegalStateException("Unknown kind " + kind);
+        }
+
+        final long sleep = blockMillis;
+        blockingTask = () -> {
+            Thread.sleep(sleep);
+            return null;
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public boolean burst() {
+        List<Future<?>> futures = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            futures.add(workExecutor.submit(blockingTask));
+        }
+
+        return workExecutor.waitForAllToComplete(futures, 10, TimeUnit.MINUTES);
+    }
+
+    public enum Kind {
+        VIRTUAL_THREADS,
+        /**
+         * A pool sized the way blocking workloads are usually sized today.
+         */
+        FIXED_POOL,
+        /**
+         * One platform thread per concurrent task.
+         */
+        CACHED_POOL
+    }
+}
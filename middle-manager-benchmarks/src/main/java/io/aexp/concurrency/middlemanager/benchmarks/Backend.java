@@ -0,0 +1,47 @@
+package io.aexp.concurrency.middlemanager.benchmarks;
+
+import io.aexp.concurrency.middlemanager.ExecutorServiceWorkExecutor;
+import io.aexp.concurrency.middlemanager.WorkExecutor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The implementations under test. Every backend ultimately runs work on the same kind of ExecutorService so that the
+ * differences measured are the WorkExecutor's own overhead.
+ */
+public enum Backend {
+    /**
+     * Baseline: ExecutorService#submit and its own futures, waited on the way WorkExecutorBase waits on futures it
+     * can't get completion signals from.
+     */
+    RAW_EXECUTOR_SERVICE {
+        @Override
+        WorkExecutor create(ExecutorService executorService) {
+            return new RawExecutorServiceWorkExecutor(executorService);
+        }
+    },
+    EXECUTOR_SERVICE {
+        @Override
+        WorkExecutor create(ExecutorService executorService) {
+            return new ExecutorServiceWorkExecutor(executorService);
+        }
+    },
+    /**
+     * WorkManagerWorkExecutor over the in-process stub WorkManager. Only available when the IBM subproject is built.
+     */
+    WORK_MANAGER {
+        @Override
+        WorkExecutor create(ExecutorService executorService) {
+            try {
+                return (WorkExecutor) Class.forName("io.aexp.concurrency.middlemanager.ibm.StubWorkManagerBackend")
+                        .getMethod("create", ExecutorService.class)
+                        .invoke(null, executorService);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("The IBM subproject isn't part of this build", e);
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not create WorkManager backend", e);
+            }
+        }
+    };
+
+    abstract WorkExecutor create(ExecutorService executorService);
+}
@@ -0,0 +1,53 @@
+package io.aexp.concurrency.middlemanager.benchmarks;
+
+import io.aexp.concurrency.middlemanager.InstrumentedWorkExecutor;
+import io.aexp.concurrency.middlemanager.WorkExecutor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-task overhead of {@link InstrumentedWorkExecutor}: compare the {@code instrumented=true} and {@code false} scores.
+ * Work runs on the submitting thread so that the difference is the decorator's own cost; it should stay within the
+ * budget documented on InstrumentedWorkExecutor. Add {@code -prof gc} to check the extra allocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InstrumentedWorkExecutorBenchmark {
+
+    @Param({"EXECUTOR_SERVICE"})
+    public Backend backend;
+
+    @Param({"false", "true"})
+    public boolean instrumented;
+
+    private WorkExecutor workExecutor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ExecutorService executorService = new DirectExecutorService();
+        WorkExecutor backendExecutor = backend.create(executorService);
+        workExecutor = instrumented ? new InstrumentedWorkExecutor(backendExecutor) : backendExecutor;
+    }
+
+    @Benchmark
+    public Future<Object> submitCallable() {
+        return workExecutor.submit(SubmitBenchmark.NoOpCallable.INSTANCE);
+    }
+}
@@ -0,0 +1,113 @@
+package io.aexp.concurrency.middlemanager.benchmarks;
+
+import io.aexp.concurrency.middlemanager.IndexedWork;
+import io.aexp.concurrency.middlemanager.ParallelLoops;
+import io.aexp.concurrency.middlemanager.WorkExecutor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to run a CPU-bound loop body over an array: sequentially on the benchmark thread, with one submitted task per
+ * element, and with {@link ParallelLoops#parallelFor(WorkExecutor, int, int, IndexedWork)} on a pool with one thread
+ * per processor. Divide the sequential time by the parallel time for the speedup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParallelForBenchmark {
+
+    @Param({"EXECUTOR_SERVICE", "WORK_MANAGER"})
+    public Backend backend;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    /**
+     * Rounds of arithmetic per element, to vary how much work there is to amortize per-element overhead over.
+     */
+    @Param({"10", "1000"})
+    public int rounds;
+
+    private ExecutorService executorService;
+    private WorkExecutor workExecutor;
+    private long[] values;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        workExecutor = backend.create(executorService);
+        values = new long[size];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Benchmark
+    public long[] sequential() {
+        for (int i = 0; i < size; i++) {
+            compute(i);
+        }
+        return values;
+    }
+
+    @Benchmark
+    public long[] submitPerElement() throws Exception {
+        List<Future<Void>> futures = new ArrayList<Future<Void>>(size);
+        for (int i = 0; i < size; i++) {
+            final int index = i;
+            futures.add(workExecutor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    compute(index);
+                    return null;
+                }
+            }));
+        }
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+        return values;
+    }
+
+    @Benchmark
+    public long[] parallelFor() throws Exception {
+        ParallelLoops.parallelFor(workExecutor, 0, size, new IndexedWork() {
+            @Override
+            public void run(int index) {
+                compute(index);
+            }
+        }).get();
+        return values;
+    }
+
+    private void compute(int index) {
+        long x = index;
+        for (int r = 0; r < rounds; r++) {
+            x = x * 6364136223846793005L + 1442695040888963407L;
+        }
+        values[index] = x;
+    }
+}
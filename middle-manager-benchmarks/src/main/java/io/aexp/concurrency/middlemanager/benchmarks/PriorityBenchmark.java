@@ -0,0 +1,135 @@
+package io.aexp.concurrency.middlemanager.benchmarks;
+
+import io.aexp.concurrency.middlemanager.BoundedWorkExecutor;
+import io.aexp.concurrency.middlemanager.OverloadPolicy;
+import io.aexp.concurrency.middlemanager.PriorityWorkExecutor;
+import io.aexp.concurrency.middlemanager.RejectedWorkException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of small urgent tasks while a background producer keeps the pool saturated with bulk work, with the urgent
+ * work queued first come, first served ({@code FIFO}, a {@link BoundedWorkExecutor}) and at a higher priority ({@code
+ * PRIORITY}, a {@link PriorityWorkExecutor}). Compare the p99 in the sample-time percentiles.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PriorityBenchmark {
+
+    public enum Scheduler {
+        FIFO, PRIORITY
+    }
+
+    @Param({"EXECUTOR_SERVICE", "WORK_MANAGER"})
+    public Backend backend;
+
+    @Param({"FIFO", "PRIORITY"})
+    public Scheduler scheduler;
+
+    /**
+     * Bulk tasks the producer keeps queued.
+     */
+    @Param({"1000"})
+    public int backlog;
+
+    /**
+     * Rounds of arithmetic per bulk task.
+     */
+    @Param({"10000"})
+    public int bulkRounds;
+
+    private ExecutorService executorService;
+    private BoundedWorkExecutor fifo;
+    private PriorityWorkExecutor priority;
+    private Thread producer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        executorService = Executors.newFixedThreadPool(threads);
+        if (scheduler == Scheduler.FIFO) {
+            fifo = new BoundedWorkExecutor(backend.create(executorService), threads, backlog * 2,
+                    OverloadPolicy.FAIL_FAST);
+        } else {
+            priority = new PriorityWorkExecutor(backend.create(executorService), 2, threads, backlog * 2,
+                    OverloadPolicy.FAIL_FAST, 1, TimeUnit.SECONDS);
+        }
+
+        producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Callable<Long> bulk = new Spin(bulkRounds);
+                while (!Thread.currentThread().isInterrupted()) {
+                    int queued = fifo != null ? fifo.getQueuedCount() : priority.getQueuedCount();
+                    if (queued >= backlog) {
+                        Thread.yield();
+                        continue;
+                    }
+                    try {
+                        if (fifo != null) {
+                            fifo.submit(bulk);
+                        } else {
+                            priority.submit(bulk, 0);
+                        }
+                    } catch (RejectedWorkException e) {
+                        Thread.yield();
+                    }
+                }
+            }
+        }, "bulk-producer");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        producer.interrupt();
+        producer.join();
+        executorService.shutdownNow();
+    }
+
+    @Benchmark
+    public Long urgent() throws Exception {
+        Callable<Long> task = new Spin(10);
+        if (fifo != null) {
+            return fifo.submit(task).get();
+        }
+        return priority.submit(task, 1).get();
+    }
+
+    private static class Spin implements Callable<Long> {
+        private final int rounds;
+
+        Spin(int rounds) {
+            this.rounds = rounds;
+        }
+
+        @Override
+        public Long call() {
+            long x = rounds;
+            for (int r = 0; r < rounds; r++) {
+                x = x * 6364136223846793005L + 1442695040888963407L;
+            }
+            return x;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package io.aexp.concurrency.middlemanager.benchmarks;
+
+import io.aexp.concurrency.middlemanager.WorkExecutorBase;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.annotation.Nonnull;
+
+/**
+ * Hands work straight to ExecutorService#submit, so the futures are whatever the ExecutorService makes.
+ */
+final class RawExecutorServiceWorkExecutor extends WorkExecutorBase {
+
+    private final ExecutorService executorService;
+
+    RawExecutorServiceWorkExecutor(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    @Nonnull
+    @Override
+    public <T extends Runnable> Future<T> submit(T runnable) {
+        return executorService.submit(runnable, runnable);
+    }
+
+    @Nonnull
+    @Override
+    public <T> Future<T> submit(Callable<T> callable) {
+        return executorService.submit(callable);
+    }
+}
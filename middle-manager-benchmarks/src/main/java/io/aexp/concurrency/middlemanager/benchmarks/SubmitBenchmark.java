@@ -0,0 +1,118 @@
+package io.aexp.concurrency.middlemanager.benchmarks;
+
+import io.aexp.concurrency.middlemanager.WorkExecutor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Submission throughput. Each invocation submits a batch and then joins it, so that queues stay bounded; the numbers
+ * are per submitted task.
+ *
+ * Run with {@code -t N} to vary the number of producer threads, and with {@code -prof gc} to get allocation per
+ * submission ({@code gc.alloc.rate.norm}); the {@code DIRECT} pool isolates the cost of submission itself.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SubmitBenchmark {
+
+    private static final int BATCH = 1000;
+
+    @Param({"RAW_EXECUTOR_SERVICE", "EXECUTOR_SERVICE", "WORK_MANAGER"})
+    public Backend backend;
+
+    @Param({"DIRECT", "FIXED"})
+    public Pool pool;
+
+    private ExecutorService executorService;
+    private WorkExecutor workExecutor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executorService = pool.create();
+        workExecutor = backend.create(executorService);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public boolean submitRunnable() {
+        List<Future<?>> futures = new ArrayList<Future<?>>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            futures.add(workExecutor.submit(NoOpRunnable.INSTANCE));
+        }
+
+        return workExecutor.waitForAllToComplete(futures, 1, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public boolean submitCallable() {
+        List<Future<?>> futures = new ArrayList<Future<?>>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            futures.add(workExecutor.submit(NoOpCallable.INSTANCE));
+        }
+
+        return workExecutor.waitForAllToComplete(futures, 1, TimeUnit.MINUTES);
+    }
+
+    public enum Pool {
+        DIRECT {
+            @Override
+            ExecutorService create() {
+                return new DirectExecutorService();
+            }
+        },
+        FIXED {
+            @Override
+            ExecutorService create() {
+                return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            }
+        };
+
+        abstract ExecutorService create();
+    }
+
+    static final class NoOpRunnable implements Runnable {
+        static final NoOpRunnable INSTANCE = new NoOpRunnable();
+
+        @Override
+        public void run() {
+        }
+    }
+
+    static final class NoOpCallable implements Callable<Object> {
+        static final NoOpCallable INSTANCE = new NoOpCallable();
+
+        @Override
+        public Object call() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package io.aexp.concurrency.middlemanager.benchmarks;
+
+import io.aexp.concurrency.middlemanager.WorkExecutor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of the waitFor* methods from the moment work is released to the moment the wait returns.
+ *
+ * Before each invocation a single worker thread is held by a gate task while the list's tasks queue up behind it, so
+ * they complete one after another in submission order once the gate opens. The completion order parameter controls
+ * where in the waited-on list the first finisher sits.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WaitBenchmark {
+
+    @Param({"RAW_EXECUTOR_SERVICE", "EXECUTOR_SERVICE", "WORK_MANAGER"})
+    public Backend backend;
+
+    @Param({"1", "10", "100", "1000"})
+    public int size;
+
+    @Param({"IN_LIST_ORDER", "REVERSE_LIST_ORDER"})
+    public CompletionOrder completionOrder;
+
+    private ExecutorService executorService;
+    private WorkExecutor workExecutor;
+
+    private CountDownLatch gate;
+    private List<Future<?>> futures;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        executorService = Executors.newSingleThreadExecutor();
+        workExecutor = backend.create(executorService);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        executorService.shutdownNow();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        final CountDownLatch gate = new CountDownLatch(1);
+        workExecutor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                gate.await();
+                return null;
+            }
+        });
+
+        futures = new ArrayList<Future<?>>(size);
+        for (int i = 0; i < size; i++) {
+            futures.add(workExecutor.submit(SubmitBenchmark.NoOpCallable.INSTANCE));
+        }
+
+        if (completionOrder == CompletionOrder.REVERSE_LIST_ORDER) {
+            Collections.reverse(futures);
+        }
+
+        this.gate = gate;
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation() {
+        // make sure the queue is drained before the next invocation builds up a new one
+        workExecutor.waitForAllToComplete(futures, 1, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    public boolean waitForCompletion() {
+        gate.countDown();
+        return workExecutor.waitForCompletion(futures.get(0), 1, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    public boolean waitForAnyToComplete() {
+        gate.countDown();
+        return workExecutor.waitForAnyToComplete(futures, 1, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    public boolean waitForAllToComplete() {
+        gate.countDown();
+        return workExecutor.waitForAllToComplete(futures, 1, TimeUnit.MINUTES);
+    }
+
+    public enum CompletionOrder {
+        /**
+         * The first future in the list is the first to complete.
+         */
+        IN_LIST_ORDER,
+        /**
+         * The last future in the list is the first to complete; the worst case for walking the list in order.
+         */
+        REVERSE_LIST_ORDER
+    }
+}
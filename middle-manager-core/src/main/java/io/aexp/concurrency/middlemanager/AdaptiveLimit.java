@@ -0,0 +1,29 @@
+package io.aexp.concurrency.middlemanager;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A concurrency limit that adjusts itself from what it observes about the work it admits. Used by {@link
+ * AdaptiveLimitWorkExecutor}; {@link AimdLimit} and {@link GradientLimit} are the stock algorithms.
+ *
+ * Methods are called inline on executing threads, so implementations must be cheap.
+ */
+@ThreadSafe
+public interface AdaptiveLimit {
+
+    /**
+     * @return how many tasks may be in flight right now; at least 1
+     */
+    int getLimit();
+
+    /**
+     * @param runNanos how long a task ran
+     * @param inFlight tasks in flight when it finished, including it
+     */
+    void onSample(long runNanos, int inFlight);
+
+    /**
+     * The underlying executor refused a task, which is as clear a sign of overload as there is.
+     */
+    void onDropped();
+}
@@ -0,0 +1,63 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Like {@link BoundedWorkExecutor}, but the in-flight limit isn't fixed: it is set by an {@link AdaptiveLimit} from
+ * how long tasks take to run, so that it finds the concurrency the underlying executor (and whatever the work calls
+ * out to, e.g. a database) can sustain, and follows it as that changes, rather than being sized for peak or for the
+ * weakest dependency up front.
+ *
+ * Tasks beyond the current limit wait here, up to {@code maxQueued} of them, and anything more is dealt with
+ * according to the {@link OverloadPolicy}. Only the time a task spends running is measured, not the time it spends
+ * queued here, since queueing here is the limit working rather than a sign of overload behind it.
+ */
+@ThreadSafe
+public final class AdaptiveLimitWorkExecutor extends LimitedWorkExecutor {
+
+    private final AdaptiveLimit limit;
+
+    /**
+     * @param delegate  executor to run admitted work
+     * @param limit     decides how many tasks to hand to the delegate at once
+     * @param maxQueued most tasks waiting here for an in-flight slot
+     * @param policy    what to do when the queue is full too; use the other constructor for {@link
+     *                  OverloadPolicy#BLOCK}
+     */
+    public AdaptiveLimitWorkExecutor(WorkExecutor delegate, AdaptiveLimit limit, int maxQueued,
+            OverloadPolicy policy) {
+        this(delegate, limit, maxQueued, policy, 0, NANOSECONDS);
+    }
+
+    /**
+     * @param delegate     executor to run admitted work
+     * @param limit        decides how many tasks to hand to the delegate at once
+     * @param maxQueued    most tasks waiting here for an in-flight slot
+     * @param policy       what to do when the queue is full too
+     * @param blockTimeout how long {@link OverloadPolicy#BLOCK} waits for room before rejecting
+     * @param unit         unit of blockTimeout
+     */
+    public AdaptiveLimitWorkExecutor(WorkExecutor delegate, AdaptiveLimit limit, int maxQueued,
+            OverloadPolicy policy, long blockTimeout, TimeUnit unit) {
+        super(delegate, maxQueued, policy, unit.toNanos(blockTimeout), true);
+        this.limit = limit;
+    }
+
+    @Override
+    public int getLimit() {
+        return Math.max(1, limit.getLimit());
+    }
+
+    @Override
+    void onTaskRan(long runNanos, int inFlight) {
+        limit.onSample(runNanos, inFlight);
+    }
+
+    @Override
+    void onTaskDropped() {
+        limit.onDropped();
+    }
+}
@@ -0,0 +1,95 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Additive increase, multiplicative decrease, as in TCP congestion avoidance: the limit grows by about one for every
+ * limit's worth of tasks that finish within the latency threshold, and is cut by the backoff ratio when one doesn't
+ * (or the underlying executor drops one).
+ *
+ * It only ever cuts once per limit's worth of samples, so the tasks that were already in flight when latency went up
+ * don't each cut it again; and it only grows while the limit is actually being used.
+ */
+@ThreadSafe
+public final class AimdLimit implements AdaptiveLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long thresholdNanos;
+
+    private double estimate;
+    private int samplesUntilNextCut;
+    private volatile int limit;
+
+    /**
+     * @param initialLimit limit to start with
+     * @param minLimit     lowest the limit will go
+     * @param maxLimit     highest the limit will go
+     * @param backoffRatio what to multiply the limit by when cutting it, between 0.5 and 1 (exclusive)
+     * @param threshold    run time beyond which a task is taken as a sign of overload
+     * @param unit         unit of threshold
+     */
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long threshold,
+            TimeUnit unit) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Need 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (backoffRatio < 0.5 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be in [0.5, 1)");
+        }
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.thresholdNanos = unit.toNanos(threshold);
+        this.estimate = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized void onSample(long runNanos, int inFlight) {
+        if (runNanos > thresholdNanos) {
+            cut();
+            return;
+        }
+
+        if (samplesUntilNextCut > 0) {
+            samplesUntilNextCut--;
+        }
+        if (inFlight * 2 >= limit) {
+            update(estimate + 1 / estimate);
+        }
+    }
+
+    @Override
+    public synchronized void onDropped() {
+        cut();
+    }
+
+    private void cut() {
+        if (samplesUntilNextCut > 0) {
+            samplesUntilNextCut--;
+            return;
+        }
+
+        update(estimate * backoffRatio);
+        samplesUntilNextCut = limit;
+    }
+
+    private void update(double newEstimate) {
+        estimate = Math.max(minLimit, Math.min(maxLimit, newEstimate));
+        limit = (int) estimate;
+    }
+
+    @Override
+    public String toString() {
+        return "AimdLimit{limit=" + limit + "}";
+    }
+}
@@ -0,0 +1,56 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Decorates any WorkExecutor with admission control, so that overload turns into backpressure instead of an
+ * ever-growing queue.
+ *
+ * At most {@code maxInFlight} tasks are handed to the underlying executor at once. Beyond that, up to {@code
+ * maxQueued} tasks wait here and are handed over as in-flight tasks finish. Anything more is dealt with according to
+ * the {@link OverloadPolicy}.
+ *
+ * The limit is fixed at {@code maxInFlight}; admission itself is {@link LimitedWorkExecutor}'s.
+ */
+@ThreadSafe
+public final class BoundedWorkExecutor extends LimitedWorkExecutor {
+
+    private final int maxInFlight;
+
+    /**
+     * @param delegate    executor to run admitted work
+     * @param maxInFlight most tasks handed to the delegate at once
+     * @param maxQueued   most tasks waiting here for an in-flight slot
+     * @param policy      what to do when both limits are reached; use the other constructor for {@link
+     *                    OverloadPolicy#BLOCK}
+     */
+    public BoundedWorkExecutor(WorkExecutor delegate, int maxInFlight, int maxQueued, OverloadPolicy policy) {
+        this(delegate, maxInFlight, maxQueued, policy, 0, NANOSECONDS);
+    }
+
+    /**
+     * @param delegate     executor to run admitted work
+     * @param maxInFlight  most tasks handed to the delegate at once
+     * @param maxQueued    most tasks waiting here for an in-flight slot
+     * @param policy       what to do when both limits are reached
+     * @param blockTimeout how long {@link OverloadPolicy#BLOCK} waits for room before rejecting
+     * @param unit         unit of blockTimeout
+     */
+    public BoundedWorkExecutor(WorkExecutor delegate, int maxInFlight, int maxQueued, OverloadPolicy policy,
+            long blockTimeout, TimeUnit unit) {
+        super(delegate, maxQueued, policy, unit.toNanos(blockTimeout), false);
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+
+        this.maxInFlight = maxInFlight;
+    }
+
+    @Override
+    public int getLimit() {
+        return maxInFlight;
+    }
+}
@@ -0,0 +1,269 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Divides one WorkExecutor between named partitions (e.g. tenants or features), so that they're isolated from each
+ * other without each needing a pool of its own.
+ *
+ * The bulkhead has a fixed capacity: the most tasks it hands to the shared executor at once, which should match the
+ * threads that executor has. Each {@link Partition} is a WorkExecutor with:
+ * <ul>
+ * <li>a reservation: that many in-flight slots are its alone, so however busy the other partitions are it can always
+ * run that much;</li>
+ * <li>a quota: the most tasks it may have in flight, including any borrowed;</li>
+ * <li>a weight: its share of the spare capacity (whatever isn't reserved) when partitions compete for it.</li>
+ * </ul>
+ * A partition can borrow as much spare capacity as it likes while nobody else needs it. Once another partition is
+ * waiting for spare capacity and has less than its weighted share, partitions at or above their share stop borrowing,
+ * and spare capacity goes to the ones below it as it's given back.
+ *
+ * Admission uses each partition's own counters and one shared counter of borrowed slots; there's no global lock.
+ * Beyond their quota, partitions queue and deal with overload like a {@link BoundedWorkExecutor}.
+ */
+@ThreadSafe
+public final class BulkheadWorkExecutor {
+
+    private final WorkExecutor delegate;
+    private final int capacity;
+
+    private final ConcurrentMap<String, Partition> partitionsByName = new ConcurrentHashMap<String, Partition>();
+    private final List<Partition> partitions = new CopyOnWriteArrayList<Partition>();
+    /**
+     * Written under this; volatile for admission to read.
+     */
+    private volatile int totalReserved;
+    private volatile int totalWeight;
+
+    private final AtomicInteger borrowed = new AtomicInteger();
+
+    /**
+     * @param delegate executor shared by every partition
+     * @param capacity most tasks to hand to the delegate at once
+     */
+    public BulkheadWorkExecutor(WorkExecutor delegate, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+
+        this.delegate = delegate;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param name      unique name of the partition
+     * @param reserved  in-flight slots reserved for the partition
+     * @param max       most tasks the partition may have in flight
+     * @param weight    the partition's relative share of spare capacity
+     * @param maxQueued most tasks waiting in the partition for an in-flight slot
+     * @param policy    what to do when the partition's limits are reached; use the other method for {@link
+     *                  OverloadPolicy#BLOCK}
+     * @return the new partition
+     */
+    public Partition addPartition(String name, int reserved, int max, int weight, int maxQueued,
+            OverloadPolicy policy) {
+        return addPartition(name, reserved, max, weight, maxQueued, policy, 0, NANOSECONDS);
+    }
+
+    /**
+     * @param name         unique name of the partition
+     * @param reserved     in-flight slots reserved for the partition
+     * @param max          most tasks the partition may have in flight
+     * @param weight       the partition's relative share of spare capacity
+     * @param maxQueued    most tasks waiting in the partition for an in-flight slot
+     * @param policy       what to do when the partition's limits are reached
+     * @param blockTimeout how long {@link OverloadPolicy#BLOCK} waits for room before rejecting
+     * @param unit         unit of blockTimeout
+     * @return the new partition
+     */
+    public synchronized Partition addPartition(String name, int reserved, int max, int weight, int maxQueued,
+            OverloadPolicy policy, long blockTimeout, TimeUnit unit) {
+        if (reserved < 0 || max < 1 || max < reserved || max > capacity) {
+            throw new IllegalArgumentException("Need 0 <= reserved <= max <= capacity and max > 0, not reserved "
+                    + reserved + ", max " + max + " and capacity " + capacity);
+        }
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight must be positive");
+        }
+        if (totalReserved + reserved > capacity) {
+            throw new IllegalArgumentException("Can't reserve " + reserved + " more slots: " + totalReserved + " of "
+                    + capacity + " are already reserved");
+        }
+        if (partitionsByName.containsKey(name)) {
+            throw new IllegalArgumentException("There's already a partition called " + name);
+        }
+
+        // borrowed slots can't be taken back, so don't reserve them out from under their borrowers
+        if (borrowed.get() > capacity - totalReserved - reserved) {
+            throw new IllegalStateException("Can't reserve " + reserved + " slots while " + borrowed.get()
+                    + " are borrowed");
+        }
+
+        Partition partition =
+                new Partition(name, reserved, max, weight, maxQueued, policy, unit.toNanos(blockTimeout));
+        partitionsByName.put(name, partition);
+        partitions.add(partition);
+        totalReserved += reserved;
+        totalWeight += weight;
+        return partition;
+    }
+
+    @Nullable
+    public Partition getPartition(String name) {
+        return partitionsByName.get(name);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return in-flight slots that aren't reserved by any partition
+     */
+    public int getSpareCapacity() {
+        return capacity - totalReserved;
+    }
+
+    /**
+     * @return spare in-flight slots in use right now
+     */
+    public int getBorrowedCount() {
+        return borrowed.get();
+    }
+
+    /**
+     * @param borrower       partition that wants another spare slot
+     * @param alreadyHolding spare slots it holds already
+     */
+    private boolean tryBorrow(Partition borrower, int alreadyHolding) {
+        if (alreadyHolding >= fairShare(borrower)) {
+            for (Partition other : partitions) {
+                if (other != borrower && other.isWaitingForFairShare()) {
+                    return false;
+                }
+            }
+        }
+
+        return LimitedWorkExecutor.tryAcquire(borrowed, capacity - totalReserved);
+    }
+
+    private void giveBack(Partition lender) {
+        borrowed.decrementAndGet();
+        for (Partition other : partitions) {
+            if (other != lender && other.hasWaiters()) {
+                other.onCapacityFreed();
+            }
+        }
+    }
+
+    /**
+     * @return how many spare slots the partition is entitled to under contention, rounded up
+     */
+    private int fairShare(Partition partition) {
+        long spare = capacity - totalReserved;
+        int weights = totalWeight;
+        return (int) ((spare * partition.weight + weights - 1) / weights);
+    }
+
+    /**
+     * One partition of the bulkhead: a WorkExecutor running its work on the bulkhead's shared executor.
+     */
+    @ThreadSafe
+    public final class Partition extends LimitedWorkExecutor {
+        private final String name;
+        private final int reserved;
+        private final int max;
+        private final int weight;
+
+        Partition(String name, int reserved, int max, int weight, int maxQueued, OverloadPolicy policy,
+                long blockTimeoutNanos) {
+            super(delegate, maxQueued, policy, blockTimeoutNanos, false);
+            this.name = name;
+            this.reserved = reserved;
+            this.max = max;
+            this.weight = weight;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getReserved() {
+            return reserved;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        @Override
+        public int getLimit() {
+            return max;
+        }
+
+        /**
+         * @return spare in-flight slots this partition is using beyond its reservation
+         */
+        public int getBorrowedCount() {
+            return Math.max(0, inFlight.get() - reserved);
+        }
+
+        /**
+         * Slots beyond the reservation are borrowed from the bulkhead's spare capacity, so that this partition always
+         * holds {@code max(0, inFlight - reserved)} of them.
+         */
+        @Override
+        boolean tryAcquireSlot() {
+            while (true) {
+                int current = inFlight.get();
+                if (current >= max) {
+                    return false;
+                }
+
+                if (current < reserved) {
+                    if (inFlight.compareAndSet(current, current + 1)) {
+                        return true;
+                    }
+                    continue;
+                }
+
+                if (!tryBorrow(this, current - reserved)) {
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+                // raced with another admission or release; try again from the top
+                giveBack(this);
+            }
+        }
+
+        @Override
+        void releaseSlot() {
+            while (true) {
+                int current = inFlight.get();
+                if (inFlight.compareAndSet(current, current - 1)) {
+                    if (current > reserved) {
+                        giveBack(this);
+                    }
+                    return;
+                }
+            }
+        }
+
+        boolean isWaitingForFairShare() {
+            int current = inFlight.get();
+            return hasWaiters() && current >= reserved && current < max
+                    && current - reserved < fairShare(this);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.lang.System.nanoTime;
+
+/**
+ * Decorates any WorkExecutor so that work submitted with a key that already has work in flight isn't run again: the
+ * caller gets the future of the work that's already running (single flight). This keeps e.g. a storm of cache misses
+ * for the same entry from computing it hundreds of times over.
+ *
+ * Optionally, a successful result is kept for a short time after it completes, so that callers arriving just after
+ * the work finished share it too. At most {@code maxCachedResults} results are kept; beyond that, the oldest are
+ * dropped first. Failed and cancelled work is never kept.
+ *
+ * In-flight work and kept results live in a concurrent map, so joining in-flight work is a lookup and starting new
+ * work is a single putIfAbsent (or replace, over an expired result).
+ *
+ * The future is shared by every caller that joined it, so cancelling it cancels the work for all of them.
+ *
+ * Work submitted without a key goes straight to the underlying executor.
+ *
+ * @param <K> key type; keys are compared with equals() and hashCode(). Work with equal keys is assumed to compute the
+ *            same kind of result.
+ */
+@ThreadSafe
+public final class CoalescingWorkExecutor<K> extends WorkExecutorBase {
+
+    private final WorkExecutor delegate;
+    private final long ttlNanos;
+    private final int maxCachedResults;
+
+    private final ConcurrentMap<K, CoalescedTask<?>> tasks = new ConcurrentHashMap<K, CoalescedTask<?>>();
+    /**
+     * Kept results, oldest first. Since every result is kept for the same time, this is also expiry order.
+     */
+    private final Queue<CoalescedTask<?>> cached = new ConcurrentLinkedQueue<CoalescedTask<?>>();
+    private final AtomicInteger cachedCount = new AtomicInteger();
+
+    /**
+     * Coalesce in-flight work only; results aren't kept once the work completes.
+     *
+     * @param delegate executor to run work on
+     */
+    public CoalescingWorkExecutor(WorkExecutor delegate) {
+        this(delegate, 0, TimeUnit.NANOSECONDS, 0);
+    }
+
+    /**
+     * @param delegate         executor to run work on
+     * @param ttl              how long to keep a successful result after its work completes
+     * @param unit             unit of ttl
+     * @param maxCachedResults most results to keep at once
+     */
+    public CoalescingWorkExecutor(WorkExecutor delegate, long ttl, TimeUnit unit, int maxCachedResults) {
+        if (ttl < 0) {
+            throw new IllegalArgumentException("ttl must not be negative");
+        }
+        if (maxCachedResults < 0) {
+            throw new IllegalArgumentException("maxCachedResults must not be negative");
+        }
+
+        this.delegate = delegate;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.maxCachedResults = maxCachedResults;
+    }
+
+    @Nonnull
+    @Override
+    public <T extends Runnable> Future<T> submit(T runnable) {
+        return delegate.submit(runnable);
+    }
+
+    @Nonnull
+    @Override
+    public <T> Future<T> submit(Callable<T> callable) {
+        return delegate.submit(callable);
+    }
+
+    /**
+     * @param key      identifies the result the callable computes
+     * @param callable the work to run, if there isn't already work in flight (or a kept result) for the key
+     * @param <T>      the type returned by the callable
+     * @return the future of the key's in-flight work or kept result if there is one, otherwise of the callable
+     * @throws RejectedWorkException if the callable had to be run and the underlying executor refused it
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public <T> ListenableWorkFuture<T> submit(@Nonnull K key, Callable<T> callable) {
+        CoalescedTask<T> task = null;
+        while (true) {
+            CoalescedTask<?> existing = tasks.get(key);
+            if (existing != null && existing.isShareable()) {
+                return (ListenableWorkFuture<T>) existing;
+            }
+
+            if (task == null) {
+                task = new CoalescedTask<T>(key, callable);
+            }
+            if (existing == null ? tasks.putIfAbsent(key, task) == null : tasks.replace(key, existing, task)) {
+                break;
+            }
+        }
+
+        try {
+            task.submitTo(delegate);
+        } catch (RuntimeException e) {
+            // others may have joined it already, and failing it also forgets the key
+            task.fail(e);
+            throw e;
+        }
+        return task;
+    }
+
+    /**
+     * Drop the key's kept result, if any, so that the next submission for it runs. In-flight work is unaffected.
+     *
+     * @param key key to forget
+     */
+    public void invalidate(@Nonnull K key) {
+        CoalescedTask<?> existing = tasks.get(key);
+        if (existing != null && existing.isDone()) {
+            tasks.remove(key, existing);
+        }
+    }
+
+    /**
+     * @return the number of keys with work in flight or a kept result
+     */
+    public int getKeyCount() {
+        return tasks.size();
+    }
+
+    /**
+     * Called before the task's result is published, so that anyone who has seen it complete also sees it either
+     * kept or forgotten.
+     */
+    private void onSucceeded(CoalescedTask<?> task) {
+        if (ttlNanos == 0 || maxCachedResults == 0) {
+            tasks.remove(task.key, task);
+            return;
+        }
+
+        task.expiresNanos = nanoTime() + ttlNanos;
+        task.kept = true;
+        cached.offer(task);
+        cachedCount.incrementAndGet();
+        evict();
+    }
+
+    /**
+     * Drop expired results, and the oldest results beyond the limit.
+     */
+    private void evict() {
+        CoalescedTask<?> oldest;
+        while ((oldest = cached.peek()) != null && (cachedCount.get() > maxCachedResults || oldest.isExpired())) {
+            if (cached.remove(oldest)) {
+                cachedCount.decrementAndGet();
+                tasks.remove(oldest.key, oldest);
+            }
+        }
+    }
+
+    private final class CoalescedTask<T> extends DelegatedTask<T> {
+        final K key;
+        volatile boolean kept;
+        volatile long expiresNanos;
+
+        CoalescedTask(K key, Callable<T> callable) {
+            super(callable);
+            this.key = key;
+        }
+
+        /**
+         * @return true if a new caller for the same key should get this rather than run the work again
+         */
+        boolean isShareable() {
+            return !isDone() || (kept && !isCancelled() && !isExpired());
+        }
+
+        boolean isExpired() {
+            return nanoTime() - expiresNanos >= 0;
+        }
+
+        @Override
+        protected void released() {
+            // no op
+        }
+
+        @Override
+        protected void set(T t) {
+            onSucceeded(this);
+            super.set(t);
+        }
+
+        @Override
+        protected void setException(Throwable t) {
+            tasks.remove(key, this);
+            super.setException(t);
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                tasks.remove(key, this);
+            }
+            super.done();
+        }
+    }
+}
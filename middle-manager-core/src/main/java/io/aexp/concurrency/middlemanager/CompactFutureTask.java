@@ -0,0 +1,317 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.lang.System.nanoTime;
+
+/**
+ * A {@link ListenableWorkFuture} that is also the task and the holder of its result, for executors that want one
+ * object per submission.
+ *
+ * It behaves like {@link NotifyingFutureTask} (and so like {@link FutureTask}), but doesn't allocate an adapter for
+ * runnables, and only allocates for waiters that actually block. Subclasses can add whatever else the underlying
+ * executor needs the task to be, e.g. a WorkManager's Work and WorkListener.
+ */
+@ThreadSafe
+public class CompactFutureTask<T> implements RunnableFuture<T>, ListenableWorkFuture<T> {
+
+    /*
+     * NEW -> RUNNING -> COMPLETING -> NORMAL / EXCEPTIONAL
+     * NEW -> COMPLETING -> NORMAL / EXCEPTIONAL (completed without running, e.g. rejected)
+     * NEW / RUNNING -> CANCELLED
+     * NEW / RUNNING -> INTERRUPTING -> INTERRUPTED
+     */
+    private static final int NEW = 0;
+    private static final int RUNNING = 1;
+    private static final int COMPLETING = 2;
+    private static final int NORMAL = 3;
+    private static final int EXCEPTIONAL = 4;
+    private static final int CANCELLED = 5;
+    private static final int INTERRUPTING = 6;
+    private static final int INTERRUPTED = 7;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<CompactFutureTask> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(CompactFutureTask.class, "state");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<CompactFutureTask, CompletionListeners.Node> LISTENERS =
+            AtomicReferenceFieldUpdater.newUpdater(CompactFutureTask.class, CompletionListeners.Node.class,
+                    "listeners");
+
+    private volatile int state;
+    private volatile Thread runner;
+    private volatile CompletionListeners.Node listeners;
+
+    /**
+     * The Callable or Runnable to run; cleared once it has run.
+     */
+    private Object task;
+    private final boolean callable;
+    /**
+     * The runnable's result until the task completes, then the result or the exception. Published by the write to
+     * state that follows it.
+     */
+    private Object outcome;
+
+    public CompactFutureTask(@Nonnull Callable<T> callable) {
+        this.task = callable;
+        this.callable = true;
+    }
+
+    public CompactFutureTask(@Nonnull Runnable runnable, T result) {
+        this.task = runnable;
+        this.callable = false;
+        this.outcome = result;
+    }
+
+    @Override
+    public void run() {
+        if (state != NEW || !STATE.compareAndSet(this, NEW, RUNNING)) {
+            return;
+        }
+
+        runner = Thread.currentThread();
+        try {
+            // cancel(true) may have come in before there was a runner to interrupt
+            if (state == RUNNING) {
+                T result;
+                try {
+                    result = call();
+                } catch (Throwable t) {
+                    complete(EXCEPTIONAL, t);
+                    return;
+                }
+                complete(NORMAL, result);
+            }
+        } finally {
+            task = null;
+            runner = null;
+            if (state >= INTERRUPTING) {
+                // wait for cancel(true)'s interrupt to land, then clear it so it doesn't leak past this task
+                while (state == INTERRUPTING) {
+                    Thread.yield();
+                }
+                Thread.interrupted();
+            }
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        int s;
+        do {
+            s = state;
+            if (s >= COMPLETING) {
+                return false;
+            }
+        } while (!STATE.compareAndSet(this, s, mayInterruptIfRunning ? INTERRUPTING : CANCELLED));
+
+        if (mayInterruptIfRunning) {
+            try {
+                Thread t = runner;
+                if (t != null) {
+                    t.interrupt();
+                }
+            } finally {
+                STATE.lazySet(this, INTERRUPTED);
+            }
+        }
+
+        finishCompletion();
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return state >= CANCELLED;
+    }
+
+    @Override
+    public boolean isDone() {
+        return state >= COMPLETING;
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        int s = state;
+        if (s <= COMPLETING) {
+            s = awaitDone(false, 0);
+        }
+        return report(s);
+    }
+
+    @Override
+    public T get(long timeout, @Nonnull TimeUnit unit) throws InterruptedException, ExecutionException,
+            TimeoutException {
+        int s = state;
+        if (s <= COMPLETING && (s = awaitDone(true, unit.toNanos(timeout))) <= COMPLETING) {
+            throw new TimeoutException();
+        }
+        return report(s);
+    }
+
+    @Override
+    public void addCompletionListener(@Nonnull Runnable listener) {
+        CompletionListeners.add(LISTENERS, this, listener);
+    }
+
+    @Override
+    public void removeCompletionListener(@Nonnull Runnable listener) {
+        CompletionListeners.remove(LISTENERS, this, listener);
+    }
+
+    @Override
+    public void addListener(@Nonnull final Runnable listener, @Nonnull final Executor executor) {
+        addCompletionListener(new Runnable() {
+            @Override
+            public void run() {
+                executor.execute(listener);
+            }
+        });
+    }
+
+    @Nonnull
+    @Override
+    public <U> ListenableWorkFuture<U> thenApply(@Nonnull WorkFunction<? super T, ? extends U> fn) {
+        return ListenableWorkFutures.thenApply(this, fn);
+    }
+
+    @Nonnull
+    @Override
+    public <U> ListenableWorkFuture<U> thenCompose(
+            @Nonnull WorkFunction<? super T, ? extends ListenableWorkFuture<U>> fn) {
+        return ListenableWorkFutures.thenCompose(this, fn);
+    }
+
+    /**
+     * Complete with a result, unless already done. The task won't run if it hasn't started.
+     */
+    protected void set(T result) {
+        complete(NORMAL, result);
+    }
+
+    /**
+     * Complete exceptionally, unless already done. The task won't run if it hasn't started.
+     */
+    protected void setException(Throwable t) {
+        complete(EXCEPTIONAL, t);
+    }
+
+    /**
+     * Called once the future is done, after its listeners have run.
+     */
+    protected void done() {
+    }
+
+    @SuppressWarnings("unchecked")
+    private T call() throws Exception {
+        if (callable) {
+            return ((Callable<T>) task).call();
+        }
+
+        ((Runnable) task).run();
+        return (T) outcome;
+    }
+
+    private void complete(int finalState, Object value) {
+        int s;
+        do {
+            s = state;
+            if (s >= COMPLETING) {
+                return;
+            }
+        } while (!STATE.compareAndSet(this, s, COMPLETING));
+
+        outcome = value;
+        STATE.lazySet(this, finalState);
+        finishCompletion();
+    }
+
+    private void finishCompletion() {
+        try {
+            CompletionListeners.complete(LISTENERS, this);
+        } finally {
+            done();
+        }
+    }
+
+    /**
+     * @return the state once done, or the last state seen if timed out
+     */
+    private int awaitDone(boolean timed, long nanos) throws InterruptedException {
+        long deadline = timed ? nanoTime() + nanos : 0;
+        Runnable waiter = null;
+        try {
+            while (true) {
+                int s = state;
+                if (s > COMPLETING) {
+                    return s;
+                }
+                if (s == COMPLETING) {
+                    // the outcome is about to be published
+                    Thread.yield();
+                    continue;
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if (waiter == null) {
+                    waiter = new Unparker(Thread.currentThread());
+                    addCompletionListener(waiter);
+                    continue;
+                }
+
+                if (timed) {
+                    long remaining = deadline - nanoTime();
+                    if (remaining <= 0) {
+                        return state;
+                    }
+                    LockSupport.parkNanos(this, remaining);
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+        } finally {
+            if (waiter != null) {
+                removeCompletionListener(waiter);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T report(int s) throws ExecutionException {
+        if (s == NORMAL) {
+            return (T) outcome;
+        }
+        if (s >= CANCELLED) {
+            throw new CancellationException();
+        }
+        throw new ExecutionException((Throwable) outcome);
+    }
+
+    private static final class Unparker implements Runnable {
+        private final Thread thread;
+
+        Unparker(Thread thread) {
+            this.thread = thread;
+        }
+
+        @Override
+        public void run() {
+            LockSupport.unpark(thread);
+        }
+    }
+}
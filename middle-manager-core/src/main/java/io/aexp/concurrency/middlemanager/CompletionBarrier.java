@@ -0,0 +1,40 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Completion listener shared by every future a single waiter is interested in. Each completion decrements one counter,
+ * and only the completion that takes it to zero wakes the waiter, so a wait costs one wakeup however many futures are
+ * involved.
+ */
+@ThreadSafe
+final class CompletionBarrier implements Runnable {
+
+    private final AtomicInteger remaining;
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    /**
+     * @param parties number of completions to wait for: 1 for "any", the number of pending futures for "all"
+     */
+    CompletionBarrier(int parties) {
+        this.remaining = new AtomicInteger(parties);
+    }
+
+    @Override
+    public void run() {
+        if (remaining.decrementAndGet() == 0) {
+            latch.countDown();
+        }
+    }
+
+    /**
+     * @return true if enough completions happened before the timeout
+     */
+    boolean await(long timeoutNanos) throws InterruptedException {
+        return latch.await(timeoutNanos, NANOSECONDS);
+    }
+}
@@ -0,0 +1,120 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * The lock-free listener stack behind {@link NotifyingFuture}s: a Treiber stack in a volatile field of the future,
+ * which completion swaps for a sentinel. Registering a listener is a single CAS, and completion is a single swap no
+ * matter how many listeners there are.
+ *
+ * The stack lives in the future's own field, accessed through an updater, so that futures don't need a separate object
+ * to hold it.
+ */
+@ThreadSafe
+final class CompletionListeners {
+
+    private static final Logger LOGGER = Logger.getLogger(CompletionListeners.class.getName());
+
+    static final Node COMPLETED = new Node(null);
+
+    private CompletionListeners() {
+    }
+
+    /**
+     * Push a listener, or run it right away if the future has already completed.
+     */
+    static <F> void add(AtomicReferenceFieldUpdater<F, Node> listeners, F future, Runnable listener) {
+        if (listeners.get(future) == COMPLETED) {
+            listener.run();
+            return;
+        }
+
+        Node node = new Node(listener);
+        while (true) {
+            Node head = listeners.get(future);
+            if (head == COMPLETED) {
+                listener.run();
+                return;
+            }
+
+            node.next = head;
+            if (listeners.compareAndSet(future, head, node)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Remove a listener, unlinking its node so that futures that are waited on over and over with timeouts don't
+     * accumulate dead nodes while they run. Does nothing once the future has completed.
+     */
+    static <F> void remove(AtomicReferenceFieldUpdater<F, Node> listeners, F future, Runnable listener) {
+        for (Node node = listeners.get(future); node != null && node != COMPLETED; node = node.next) {
+            if (node.listener == listener) {
+                node.listener = null;
+                unlinkRemoved(listeners, future);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Unlink every blanked node, starting over whenever a concurrent unlink or push gets in the way.
+     */
+    private static <F> void unlinkRemoved(AtomicReferenceFieldUpdater<F, Node> listeners, F future) {
+        retry:
+        while (true) {
+            Node pred = null;
+            Node node = listeners.get(future);
+            while (node != null && node != COMPLETED) {
+                Node next = node.next;
+                if (node.listener != null) {
+                    pred = node;
+                } else if (pred != null) {
+                    pred.next = next;
+                    if (pred.listener == null) {
+                        // pred was removed meanwhile, so this unlink may have been lost
+                        continue retry;
+                    }
+                } else if (!listeners.compareAndSet(future, node, next)) {
+                    continue retry;
+                }
+                node = next;
+            }
+            return;
+        }
+    }
+
+    /**
+     * Mark the future completed and run every listener registered so far. A listener that throws is logged and skipped:
+     * completion happens on whatever thread finished the task (a pool worker, a container thread or a canceller), and
+     * none of them should be failed by someone else's listener.
+     */
+    static <F> void complete(AtomicReferenceFieldUpdater<F, Node> listeners, F future) {
+        for (Node node = listeners.getAndSet(future, COMPLETED); node != null; node = node.next) {
+            Runnable listener = node.listener;
+            if (listener == null) {
+                continue;
+            }
+
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                // keep notifying the rest; a misbehaving listener shouldn't strand other waiters
+                LOGGER.log(Level.SEVERE, "Completion listener " + listener + " failed", e);
+            }
+        }
+    }
+
+    static final class Node {
+        volatile Runnable listener;
+        volatile Node next;
+
+        Node(Runnable listener) {
+            this.listener = listener;
+        }
+    }
+}
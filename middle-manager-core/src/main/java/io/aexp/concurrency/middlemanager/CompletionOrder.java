@@ -0,0 +1,101 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Hands futures back to waiters in the order they complete. Each future's completion listener puts it on a queue, so
+ * a waiter wakes once per completion and never scans the batch.
+ *
+ * Futures that can't notify (not issued by a WorkExecutor) are checked between short waits on the queue.
+ */
+@ThreadSafe
+final class CompletionOrder<T> {
+
+    private static final long FOREIGN_CHECK_NANOS = MILLISECONDS.toNanos(1);
+
+    private final BlockingQueue<Future<T>> completed = new LinkedBlockingQueue<Future<T>>();
+    private final Queue<Future<T>> foreign = new ConcurrentLinkedQueue<Future<T>>();
+
+    CompletionOrder() {
+    }
+
+    CompletionOrder(List<Future<T>> futures) {
+        for (Future<T> future : futures) {
+            add(future);
+        }
+    }
+
+    void add(final Future<T> future) {
+        if (future instanceof NotifyingFuture) {
+            ((NotifyingFuture<T>) future).addCompletionListener(new Runnable() {
+                @Override
+                public void run() {
+                    completed.offer(future);
+                }
+            });
+        } else {
+            foreign.add(future);
+        }
+    }
+
+    /**
+     * @param deadlineNanos {@link System#nanoTime()} to give up at
+     * @return the next future to complete; each future is returned once
+     * @throws TimeoutException if none completes before the deadline
+     */
+    Future<T> next(long deadlineNanos) throws InterruptedException, TimeoutException {
+        Future<T> future = poll(deadlineNanos);
+        if (future == null) {
+            throw new TimeoutException("Timed out waiting for work to complete");
+        }
+
+        return future;
+    }
+
+    /**
+     * @param deadlineNanos {@link System#nanoTime()} to give up at
+     * @return the next future to complete, or null if none completes before the deadline
+     */
+    @Nullable
+    Future<T> poll(long deadlineNanos) throws InterruptedException {
+        while (true) {
+            Future<T> future = completed.poll();
+            if (future != null) {
+                return future;
+            }
+
+            for (Future<T> candidate : foreign) {
+                // remove() decides which waiter gets it
+                if (candidate.isDone() && foreign.remove(candidate)) {
+                    return candidate;
+                }
+            }
+
+            long remaining = deadlineNanos - nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+
+            if (!foreign.isEmpty()) {
+                remaining = min(remaining, FOREIGN_CHECK_NANOS);
+            }
+            future = completed.poll(remaining, NANOSECONDS);
+            if (future != null) {
+                return future;
+            }
+        }
+    }
+}
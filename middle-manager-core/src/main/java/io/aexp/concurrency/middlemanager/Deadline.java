@@ -0,0 +1,63 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A point in time after which work is no longer wanted, measured with {@link System#nanoTime()}.
+ */
+@Immutable
+public final class Deadline {
+
+    /**
+     * Far enough out to never expire, but not so far that arithmetic on it overflows.
+     */
+    private static final long MAX_TIMEOUT_NANOS = Long.MAX_VALUE / 4;
+
+    private static final Deadline NONE = new Deadline(nanoTime() + MAX_TIMEOUT_NANOS);
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @param timeout how long from now until the deadline
+     * @param unit    unit of timeout
+     * @return a deadline that expires after the timeout
+     */
+    @Nonnull
+    public static Deadline after(long timeout, TimeUnit unit) {
+        return new Deadline(nanoTime() + Math.min(unit.toNanos(timeout), MAX_TIMEOUT_NANOS));
+    }
+
+    /**
+     * @return a deadline that never expires
+     */
+    @Nonnull
+    public static Deadline none() {
+        return NONE;
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - nanoTime() <= 0;
+    }
+
+    /**
+     * @param unit unit to express the remaining time in
+     * @return time left until the deadline, or a non-positive value if it has passed
+     */
+    public long timeRemaining(TimeUnit unit) {
+        return unit.convert(deadlineNanos - nanoTime(), NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline{" + NANOSECONDS.toMillis(deadlineNanos - nanoTime()) + "ms from now}";
+    }
+}
@@ -0,0 +1,15 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Used to fail a future whose work was skipped because its {@link Deadline} had passed before the work started.
+ */
+public class DeadlineExceededException extends TimeoutException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
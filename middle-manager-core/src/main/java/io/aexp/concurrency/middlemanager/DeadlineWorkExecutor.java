@@ -0,0 +1,173 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.lang.System.nanoTime;
+
+/**
+ * Decorates any WorkExecutor so that work can be given a {@link Deadline}, after which it's no longer wanted. Work whose
+ * deadline has passed by the time the underlying executor gets to it is skipped, and its future fails with a {@link
+ * DeadlineExceededException}. This keeps a backed-up executor from spending its recovery on work nobody is waiting for
+ * any more.
+ *
+ * Optionally, the waitFor* methods can also treat a caller's timeout as the deadline for what it waited on: if the wait
+ * times out, the caller is assumed to have given up, and any of its work from this executor that hasn't started yet
+ * is failed the same way and skipped.
+ */
+@ThreadSafe
+public final class DeadlineWorkExecutor extends WorkExecutorBase implements ListenableWorkExecutor {
+
+    private final WorkExecutor delegate;
+    private final boolean abandonOnWaitTimeout;
+
+    public DeadlineWorkExecutor(WorkExecutor delegate) {
+        this(delegate, false);
+    }
+
+    /**
+     * @param delegate             executor to run work on
+     * @param abandonOnWaitTimeout if true, work from this executor that hasn't started by the time a wait for it times
+     *                             out is skipped
+     */
+    public DeadlineWorkExecutor(WorkExecutor delegate, boolean abandonOnWaitTimeout) {
+        this.delegate = delegate;
+        this.abandonOnWaitTimeout = abandonOnWaitTimeout;
+    }
+
+    @Nonnull
+    @Override
+    public <T extends Runnable> ListenableWorkFuture<T> submit(T runnable) {
+        return submit(runnable, Deadline.none());
+    }
+
+    @Nonnull
+    @Override
+    public <T> ListenableWorkFuture<T> submit(Callable<T> callable) {
+        return submit(callable, Deadline.none());
+    }
+
+    /**
+     * @param runnable the work to run
+     * @param deadline skip the work if it hasn't started by then
+     * @param <T>      the type of the runnable
+     * @return a future that completes with the runnable, or fails with a {@link DeadlineExceededException} if the
+     * work was skipped
+     */
+    @Nonnull
+    public <T extends Runnable> ListenableWorkFuture<T> submit(T runnable, @Nonnull Deadline deadline) {
+        DeadlineTask<T> task = new DeadlineTask<T>(runnable, runnable, deadline);
+        submitTask(task);
+        return task;
+    }
+
+    /**
+     * @param callable the work to run
+     * @param deadline skip the work if it hasn't started by then
+     * @param <T>      the type returned by the callable
+     * @return a future that completes with the callable's result, or fails with a {@link DeadlineExceededException}
+     * if the work was skipped
+     */
+    @Nonnull
+    public <T> ListenableWorkFuture<T> submit(Callable<T> callable, @Nonnull Deadline deadline) {
+        DeadlineTask<T> task = new DeadlineTask<T>(callable, deadline);
+        submitTask(task);
+        return task;
+    }
+
+    @Override
+    public boolean waitForCompletion(Future<?> f, long timeout, TimeUnit unit) {
+        long start = nanoTime();
+        boolean completed = super.waitForCompletion(f, timeout, unit);
+        if (!completed) {
+            abandonIfWaitTimedOut(Collections.<Future<?>>singletonList(f), start, unit.toNanos(timeout));
+        }
+        return completed;
+    }
+
+    @Override
+    public boolean waitForAnyToComplete(List<Future<?>> futures, long timeout, TimeUnit unit) {
+        long start = nanoTime();
+        boolean completed = super.waitForAnyToComplete(futures, timeout, unit);
+        if (!completed) {
+            abandonIfWaitTimedOut(futures, start, unit.toNanos(timeout));
+        }
+        return completed;
+    }
+
+    @Override
+    public boolean waitForAllToComplete(List<Future<?>> futures, long timeout, TimeUnit unit) {
+        long start = nanoTime();
+        boolean completed = super.waitForAllToComplete(futures, timeout, unit);
+        if (!completed) {
+            abandonIfWaitTimedOut(futures, start, unit.toNanos(timeout));
+        }
+        return completed;
+    }
+
+    private void submitTask(DeadlineTask<?> task) {
+        if (task.deadline.isExpired()) {
+            task.abandon(task.expired());
+            return;
+        }
+
+        task.submitTo(delegate);
+    }
+
+    /**
+     * A wait also gives up early if the caller is interrupted, or (for all of them) if one of the futures was
+     * cancelled. Neither means the caller has stopped waiting for the rest, so only a wait that ran out its whole
+     * timeout counts.
+     */
+    private void abandonIfWaitTimedOut(List<Future<?>> futures, long startNanos, long timeoutNanos) {
+        if (!abandonOnWaitTimeout || Thread.currentThread().isInterrupted()
+                || nanoTime() - startNanos < timeoutNanos) {
+            return;
+        }
+
+        for (Future<?> future : futures) {
+            if (future instanceof DeadlineTask && !future.isDone()) {
+                ((DeadlineTask<?>) future).abandon(
+                        new DeadlineExceededException("Caller stopped waiting before the work started"));
+            }
+        }
+    }
+
+    private static final class DeadlineTask<T> extends DelegatedTask<T> {
+        final Deadline deadline;
+
+        DeadlineTask(Callable<T> callable, Deadline deadline) {
+            super(callable);
+            this.deadline = deadline;
+        }
+
+        DeadlineTask(Runnable runnable, T result, Deadline deadline) {
+            super(runnable, result);
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            if (deadline.isExpired()) {
+                abandon(expired());
+                return;
+            }
+
+            super.run();
+        }
+
+        @Override
+        protected void released() {
+            // no op
+        }
+
+        DeadlineExceededException expired() {
+            return new DeadlineExceededException("Deadline passed before the work started");
+        }
+    }
+}
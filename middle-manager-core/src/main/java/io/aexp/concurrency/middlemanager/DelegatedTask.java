@@ -0,0 +1,150 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A task that a decorating executor hands to its delegate as a plain Runnable, while giving its own future to the
+ * caller.
+ *
+ * It makes sure the decorator hears back exactly once via {@link #released()}, whether the delegate runs the task,
+ * drops it without running it (e.g. a WorkManager rejecting work after accepting the submission), or the caller
+ * cancels it before it starts, and that a dropped task's future fails with {@link RejectedWorkException} rather than
+ * never completing.
+ */
+@ThreadSafe
+abstract class DelegatedTask<T> extends NotifyingFutureTask<T> {
+
+    private static final int PENDING = 0;
+    private static final int RUNNING = 1;
+    private static final int ABANDONED = 2;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<DelegatedTask> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(DelegatedTask.class, "state");
+
+    private volatile int state = PENDING;
+    private volatile boolean submitted;
+
+    DelegatedTask(Callable<T> callable) {
+        super(callable);
+    }
+
+    DelegatedTask(Runnable runnable, T result) {
+        super(runnable, result);
+    }
+
+    /**
+     * Called exactly once after the task has been handed to a delegate with {@link #submitTo(WorkExecutor)}: when it
+     * finishes running, when it's cancelled before it starts, or when the delegate is known to have dropped it.
+     */
+    protected abstract void released();
+
+    @Override
+    public void run() {
+        if (!STATE.compareAndSet(this, PENDING, RUNNING)) {
+            return;
+        }
+
+        try {
+            super.run();
+        } finally {
+            released();
+        }
+    }
+
+    /**
+     * Run on the current thread without going through a delegate; {@link #released()} is not called.
+     */
+    void runInline() {
+        if (STATE.compareAndSet(this, PENDING, RUNNING)) {
+            super.run();
+        }
+    }
+
+    /**
+     * @param delegate executor to run this task
+     * @throws RejectedWorkException if the delegate refuses the task outright, in which case {@link #released()} is
+     *                               not called
+     */
+    void submitTo(WorkExecutor delegate) {
+        final Future<?> delegateFuture;
+        try {
+            delegateFuture = delegate.submit((Runnable) this);
+        } catch (RejectedExecutionException e) {
+            throw e instanceof RejectedWorkException ? (RejectedWorkException) e
+                    : new RejectedWorkException("Underlying executor rejected work", e);
+        }
+        submitted = true;
+
+        if (delegateFuture instanceof NotifyingFuture) {
+            ((NotifyingFuture<?>) delegateFuture).addCompletionListener(new Runnable() {
+                @Override
+                public void run() {
+                    abandonIfNotRun(delegateFuture);
+                }
+            });
+        }
+    }
+
+    /**
+     * Cancelling a task that the delegate hasn't started yet releases it straight away, rather than leaving whatever
+     * it holds in the decorator tied up until the delegate gets round to skipping it.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (!super.cancel(mayInterruptIfRunning)) {
+            return false;
+        }
+
+        if (submitted && STATE.compareAndSet(this, PENDING, ABANDONED)) {
+            released();
+        }
+        return true;
+    }
+
+    void fail(Throwable t) {
+        setException(t);
+    }
+
+    /**
+     * Fail the task if it hasn't started yet, so that the delegate skips it when it gets to it.
+     *
+     * @param cause what to fail the task with
+     * @return true if the task hadn't started and has now been failed
+     */
+    boolean abandon(Throwable cause) {
+        if (!STATE.compareAndSet(this, PENDING, ABANDONED)) {
+            return false;
+        }
+
+        try {
+            fail(cause);
+        } finally {
+            released();
+        }
+        return true;
+    }
+
+    private void abandonIfNotRun(Future<?> delegateFuture) {
+        if (state != PENDING) {
+            return;
+        }
+
+        Throwable cause = null;
+        try {
+            ListenableWorkFutures.getDone(delegateFuture);
+        } catch (ExecutionException e) {
+            cause = e.getCause();
+        } catch (CancellationException e) {
+            cause = e;
+        }
+
+        abandon(new RejectedWorkException("Underlying executor did not run work", cause));
+    }
+}
@@ -2,28 +2,82 @@ package io.aexp.concurrency.middlemanager;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
+/**
+ * Runs work on an ExecutorService.
+ *
+ * Work is wrapped in this library's own futures and handed to {@link ExecutorService#execute(Runnable)}, rather than
+ * to submit(), so that the futures can notify listeners when they complete. That means the service's own task
+ * creation is bypassed: an AbstractExecutorService subclass that overrides newTaskFor (e.g. to carry context over to
+ * the worker thread) won't see work submitted through here. Wrap the Runnable in execute() instead if you need that.
+ */
 @ThreadSafe
-public final class ExecutorServiceWorkExecutor extends WorkExecutorBase {
+public final class ExecutorServiceWorkExecutor extends WorkExecutorBase implements ListenableWorkExecutor {
 
     private final ExecutorService executorService;
+    @Nullable
+    private final StarvationDetector starvationDetector;
 
     public ExecutorServiceWorkExecutor(ExecutorService executorService) {
+        this(executorService, null);
+    }
+
+    /**
+     * @param executorService    executor service to run work on
+     * @param starvationDetector if not null, watches for this executor's tasks waiting on work queued behind them
+     *                           until the pool stalls
+     */
+    public ExecutorServiceWorkExecutor(ExecutorService executorService,
+            @Nullable StarvationDetector starvationDetector) {
         this.executorService = executorService;
+        this.starvationDetector = starvationDetector;
     }
 
     @Nonnull
     @Override
-    public <T extends Runnable> Future<T> submit(T runnable) {
-        return executorService.submit(runnable, runnable);
+    public <T extends Runnable> ListenableWorkFuture<T> submit(T runnable) {
+        NotifyingFutureTask<T> future = newTask(runnable, runnable);
+        execute(future);
+        return future;
     }
 
     @Nonnull
     @Override
-    public <T> Future<T> submit(Callable<T> callable) {
-        return executorService.submit(callable);
+    public <T> ListenableWorkFuture<T> submit(Callable<T> callable) {
+        NotifyingFutureTask<T> future = newTask(callable);
+        execute(future);
+        return future;
+    }
+
+    @Nullable
+    @Override
+    protected StarvationDetector getStarvationDetector() {
+        return starvationDetector;
+    }
+
+    private <T> NotifyingFutureTask<T> newTask(Callable<T> callable) {
+        return starvationDetector == null
+                ? new NotifyingFutureTask<T>(callable)
+                : starvationDetector.newTask(callable);
+    }
+
+    private <T> NotifyingFutureTask<T> newTask(Runnable runnable, T result) {
+        return starvationDetector == null
+                ? new NotifyingFutureTask<T>(runnable, result)
+                : starvationDetector.newTask(runnable, result);
+    }
+
+    private void execute(NotifyingFutureTask<?> task) {
+        try {
+            executorService.execute(task);
+        } catch (RejectedExecutionException e) {
+            // nobody will see the future, but a detector still counts it as queued until it's done
+            task.cancel(false);
+            throw new RejectedWorkException("ExecutorService rejected work", e);
+        }
     }
 }
@@ -0,0 +1,165 @@
+package io.aexp.concurrency.middlemanager;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Delay-based limit in the style of TCP Vegas: it compares how long tasks take to run with how long they take with
+ * nothing queued up behind the scenes, and scales the limit by that gradient.
+ *
+ * Samples are taken a window at a time, a window being a limit's worth of tasks, so that a burst of slow tasks that
+ * were all in flight together counts once rather than once per task. While a window's average run time stays within
+ * {@code tolerance} of the no-load run time, the limit grows by a small allowance (the square root of the limit); once
+ * work takes longer than that, the limit is scaled down by the gradient, to about the concurrency at which it didn't.
+ * It therefore settles close to the point where adding concurrency stops adding throughput and only adds latency.
+ *
+ * The no-load run time is measured by probing: for one window the limit drops to {@code minLimit}, and tasks that
+ * started before the probe are ignored. The first window is a probe, so that an executor that starts out overloaded
+ * doesn't take its overloaded run time as the baseline. Because the no-load run time can itself change (e.g. a
+ * downstream service gets slower for good), it's probed again every {@code probeInterval} windows.
+ */
+@ThreadSafe
+public final class GradientLimit implements AdaptiveLimit {
+
+    /**
+     * Fewest samples a probe averages, however low {@code minLimit} is.
+     */
+    private static final int MIN_PROBE_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final int probeInterval;
+
+    private double estimate;
+    private long noLoadNanos;
+    private boolean probing;
+    private int probeSkips;
+    private int windowsUntilProbe;
+    private int windowSamples;
+    private long windowNanos;
+    private int windowMaxInFlight;
+    private volatile int limit;
+
+    /**
+     * Starts at 10, in [1, 1000], with a tolerance of 1.2 and a probe every 1000 windows.
+     */
+    public GradientLimit() {
+        this(10, 1, 1000, 1.2, 1000);
+    }
+
+    /**
+     * @param initialLimit  limit to go to once the first probe is done
+     * @param minLimit      lowest the limit will go, and the limit while probing
+     * @param maxLimit      highest the limit will go
+     * @param tolerance     how many times the no-load run time work may take before the limit is scaled down; at least
+     *                      1, with some headroom for run times that vary for reasons other than load
+     * @param probeInterval windows between re-measuring the no-load run time
+     */
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, int probeInterval) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Need 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (tolerance < 1) {
+            throw new IllegalArgumentException("tolerance must be at least 1");
+        }
+        if (probeInterval < 1) {
+            throw new IllegalArgumentException("probeInterval must be positive");
+        }
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.probeInterval = probeInterval;
+        this.estimate = initialLimit;
+        startProbe();
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized void onSample(long runNanos, int inFlight) {
+        if (probing) {
+            if (inFlight > limit) {
+                // started before the probe, so it ran under load
+                return;
+            }
+            if (probeSkips > 0) {
+                // the last few of those might finish once we're down to the limit
+                probeSkips--;
+                return;
+            }
+        }
+
+        windowSamples++;
+        windowNanos += runNanos;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+        if (windowSamples < (probing ? Math.max(limit, MIN_PROBE_SAMPLES) : limit)) {
+            return;
+        }
+
+        long averageNanos = Math.max(1, windowNanos / windowSamples);
+        int maxInFlight = windowMaxInFlight;
+        windowSamples = 0;
+        windowNanos = 0;
+        windowMaxInFlight = 0;
+
+        if (probing) {
+            // back to where we were, now with a fresh baseline to judge it by
+            probing = false;
+            noLoadNanos = averageNanos;
+            windowsUntilProbe = probeInterval;
+            update(estimate);
+            return;
+        }
+        if (--windowsUntilProbe <= 0) {
+            startProbe();
+            return;
+        }
+
+        noLoadNanos = Math.min(noLoadNanos, averageNanos);
+        if (averageNanos <= tolerance * noLoadNanos) {
+            if (maxInFlight * 2 < limit) {
+                // not using the limit we have, so no evidence that more would help
+                return;
+            }
+            update(estimate + allowance(estimate));
+        } else {
+            // work is queueing somewhere: go back to about the concurrency at which it wasn't
+            update(estimate * Math.max(0.5, (double) noLoadNanos / averageNanos));
+        }
+    }
+
+    @Override
+    public synchronized void onDropped() {
+        update(estimate * 0.5);
+    }
+
+    private void startProbe() {
+        probing = true;
+        probeSkips = minLimit;
+        windowSamples = 0;
+        windowNanos = 0;
+        windowMaxInFlight = 0;
+        limit = minLimit;
+    }
+
+    private void update(double newEstimate) {
+        estimate = Math.max(minLimit, Math.min(maxLimit, newEstimate));
+        if (!probing) {
+            // a probe holds the limit at minLimit until it's done, or loaded samples would get into the baseline
+            limit = (int) estimate;
+        }
+    }
+
+    private static double allowance(double estimate) {
+        return Math.sqrt(estimate);
+    }
+
+    @Override
+    public String toString() {
+        return "GradientLimit{limit=" + limit + "}";
+    }
+}
@@ -0,0 +1,290 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Decorates a {@link SchedulingWorkExecutor} with hedged requests, to cut the tail latency that comes from the
+ * occasional slow attempt (a GC pause, a slow replica behind the work) rather than from the work itself.
+ *
+ * {@link #submitHedged(Callable, long, TimeUnit)} runs the callable, and if it hasn't finished after the hedge delay,
+ * runs it a second time alongside. Whichever attempt finishes first, successfully or not, completes the future, and the
+ * other is cancelled (interrupting it if it's running). The work must therefore be safe to run twice.
+ *
+ * {@link #submitHedged(Callable)} takes the delay from a percentile of recent latencies, so that only the slowest few
+ * percent of work gets hedged. Latency is measured once per hedged submission, from submission until its future
+ * completes successfully; when a hedge wins, that also stands in for the primary it cancelled, which would have taken
+ * at least as long. Latencies are kept in a window of the last {@code samplesPerWindow} samples; until the first
+ * window is complete there is no delay to go on and work isn't hedged.
+ *
+ * Either way, hedges are paid for from a budget that grows by {@code hedgeBudgetPercent} of a hedge with each hedged
+ * submission (and can save up for a short burst), so that hedging adds at most that much load however slow things
+ * get. A hedge that's due when the budget is spent is skipped.
+ *
+ * Work submitted with plain submit() isn't hedged or measured.
+ */
+@ThreadSafe
+public final class HedgingWorkExecutor extends WorkExecutorBase {
+
+    private static final int HEDGE_COST = 100;
+    private static final int MAX_SAVED_HEDGES = 10;
+
+    private final SchedulingWorkExecutor delegate;
+    private final int hedgeBudgetPercent;
+    private final double hedgePercentile;
+    private final int samplesPerWindow;
+
+    private final AtomicLong budget = new AtomicLong();
+    private final AtomicReference<LatencyHistogram> window =
+            new AtomicReference<LatencyHistogram>(new LatencyHistogram());
+    private volatile long hedgeDelayNanos = -1;
+
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    /**
+     * Derives hedge delays from the 95th percentile of the last 1000 latencies.
+     *
+     * @param delegate           executor to run work on, which also times the hedges
+     * @param hedgeBudgetPercent most extra attempts to run, as a percentage of hedged submissions
+     */
+    public HedgingWorkExecutor(SchedulingWorkExecutor delegate, int hedgeBudgetPercent) {
+        this(delegate, hedgeBudgetPercent, 95, 1000);
+    }
+
+    /**
+     * @param delegate           executor to run work on, which also times the hedges
+     * @param hedgeBudgetPercent most extra attempts to run, as a percentage of hedged submissions
+     * @param hedgePercentile    latency percentile to use as the hedge delay in {@link #submitHedged(Callable)}
+     * @param samplesPerWindow   how many latencies the percentile is taken over
+     */
+    public HedgingWorkExecutor(SchedulingWorkExecutor delegate, int hedgeBudgetPercent, double hedgePercentile,
+            int samplesPerWindow) {
+        if (hedgeBudgetPercent < 0 || hedgeBudgetPercent > 100) {
+            throw new IllegalArgumentException("hedgeBudgetPercent must be in [0, 100]");
+        }
+        if (hedgePercentile <= 0 || hedgePercentile >= 100) {
+            throw new IllegalArgumentException("hedgePercentile must be in (0, 100)");
+        }
+        if (samplesPerWindow < 1) {
+            throw new IllegalArgumentException("samplesPerWindow must be positive");
+        }
+
+        this.delegate = delegate;
+        this.hedgeBudgetPercent = hedgeBudgetPercent;
+        this.hedgePercentile = hedgePercentile;
+        this.samplesPerWindow = samplesPerWindow;
+    }
+
+    @Nonnull
+    @Override
+    public <T extends Runnable> Future<T> submit(T runnable) {
+        return delegate.submit(runnable);
+    }
+
+    @Nonnull
+    @Override
+    public <T> Future<T> submit(Callable<T> callable) {
+        return delegate.submit(callable);
+    }
+
+    /**
+     * @param callable   the work to run; it may be run twice
+     * @param hedgeDelay how long to give the first attempt before starting a second
+     * @param unit       unit of hedgeDelay
+     * @param <T>        the type returned by the callable
+     * @return a future that completes with whichever attempt finishes first
+     * @throws RejectedWorkException if the underlying executor refuses the first attempt
+     */
+    @Nonnull
+    public <T> ListenableWorkFuture<T> submitHedged(Callable<T> callable, long hedgeDelay, TimeUnit unit) {
+        return start(callable, unit.toNanos(hedgeDelay));
+    }
+
+    /**
+     * Hedge after the configured percentile of recent latencies; see {@link #getHedgeDelayNanos()}.
+     *
+     * @param callable the work to run; it may be run twice
+     * @param <T>      the type returned by the callable
+     * @return a future that completes with whichever attempt finishes first
+     * @throws RejectedWorkException if the underlying executor refuses the first attempt
+     */
+    @Nonnull
+    public <T> ListenableWorkFuture<T> submitHedged(Callable<T> callable) {
+        return start(callable, hedgeDelayNanos);
+    }
+
+    /**
+     * @return the hedge delay {@link #submitHedged(Callable)} uses right now, or -1 if there aren't enough latencies
+     * to go on yet
+     */
+    public long getHedgeDelayNanos() {
+        return hedgeDelayNanos;
+    }
+
+    /**
+     * @return how many second attempts have been started
+     */
+    public long getHedgeCount() {
+        return hedges.get();
+    }
+
+    /**
+     * @return how many second attempts finished first
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.get();
+    }
+
+    private <T> ListenableWorkFuture<T> start(Callable<T> callable, long hedgeDelayNanos) {
+        addToBudget();
+        Hedged<T> hedged = new Hedged<T>(callable);
+        try {
+            hedged.primary = delegate.submit(new Attempt<T>(hedged, false));
+        } catch (RejectedExecutionException e) {
+            throw e instanceof RejectedWorkException ? (RejectedWorkException) e
+                    : new RejectedWorkException("Underlying executor rejected work", e);
+        }
+
+        if (hedgeDelayNanos >= 0 && !hedged.result.isDone()) {
+            try {
+                hedged.hedge = delegate.schedule(new Attempt<T>(hedged, true), hedgeDelayNanos, NANOSECONDS);
+            } catch (RejectedWorkException e) {
+                // the scheduler has been shut down; carry on without a hedge
+            }
+        }
+
+        hedged.result.addCompletionListener(hedged);
+        return hedged.result;
+    }
+
+    private void addToBudget() {
+        while (true) {
+            long current = budget.get();
+            long next = Math.min(current + hedgeBudgetPercent, HEDGE_COST * MAX_SAVED_HEDGES);
+            if (next == current || budget.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    private boolean takeFromBudget() {
+        while (true) {
+            long current = budget.get();
+            if (current < HEDGE_COST) {
+                return false;
+            }
+            if (budget.compareAndSet(current, current - HEDGE_COST)) {
+                return true;
+            }
+        }
+    }
+
+    private void recordLatency(long nanos) {
+        LatencyHistogram current = window.get();
+        current.record(nanos);
+        if (current.getCount() >= samplesPerWindow && window.compareAndSet(current, new LatencyHistogram())) {
+            hedgeDelayNanos = current.getValueAtPercentile(hedgePercentile);
+        }
+    }
+
+    /**
+     * The state shared by both attempts at some work. It doubles as the completion listener on the result, which
+     * records the latency and cancels whichever attempt didn't win (or both, if the caller cancelled).
+     */
+    private final class Hedged<T> implements Runnable {
+        final Callable<T> callable;
+        final long submittedNanos = nanoTime();
+        final SettableWorkFuture<T> result = new SettableWorkFuture<T>();
+        final AtomicInteger finished = new AtomicInteger();
+        volatile Future<?> primary;
+        volatile Future<?> hedge;
+        volatile boolean hedgeWon;
+        volatile boolean succeeded;
+
+        Hedged(Callable<T> callable) {
+            this.callable = callable;
+        }
+
+        /**
+         * @return true if this attempt is the first to finish, and so completes the result
+         */
+        boolean finish(boolean isHedge) {
+            if (finished.getAndIncrement() != 0) {
+                return false;
+            }
+
+            hedgeWon = isHedge;
+            return true;
+        }
+
+        @Override
+        public void run() {
+            if (succeeded) {
+                recordLatency(nanoTime() - submittedNanos);
+            }
+
+            if (result.isCancelled()) {
+                cancel(primary);
+                cancel(hedge);
+            } else {
+                cancel(hedgeWon ? primary : hedge);
+            }
+        }
+
+        private void cancel(Future<?> attempt) {
+            if (attempt != null) {
+                attempt.cancel(true);
+            }
+        }
+    }
+
+    private final class Attempt<T> implements Callable<Void> {
+        private final Hedged<T> hedged;
+        private final boolean isHedge;
+
+        Attempt(Hedged<T> hedged, boolean isHedge) {
+            this.hedged = hedged;
+            this.isHedge = isHedge;
+        }
+
+        @Override
+        public Void call() {
+            if (isHedge) {
+                if (hedged.result.isDone() || !takeFromBudget()) {
+                    return null;
+                }
+                hedges.incrementAndGet();
+            }
+
+            T value;
+            try {
+                value = hedged.callable.call();
+            } catch (Throwable t) {
+                if (hedged.finish(isHedge)) {
+                    hedged.result.setException(t);
+                }
+                return null;
+            }
+
+            if (hedged.finish(isHedge)) {
+                if (isHedge) {
+                    hedgeWins.incrementAndGet();
+                }
+                hedged.succeeded = true;
+                hedged.result.set(value);
+            }
+            return null;
+        }
+    }
+}
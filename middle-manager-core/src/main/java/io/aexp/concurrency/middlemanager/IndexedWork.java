@@ -0,0 +1,14 @@
+package io.aexp.concurrency.middlemanager;
+
+/**
+ * The body of a {@link ParallelLoops#parallelFor(WorkExecutor, int, int, IndexedWork) parallel for loop}. Java 6 has
+ * no {@code IntConsumer}, so this stands in for it.
+ */
+public interface IndexedWork {
+
+    /**
+     * @param index the loop index to process
+     * @throws Exception if processing fails; the loop's future fails with it
+     */
+    void run(int index) throws Exception;
+}
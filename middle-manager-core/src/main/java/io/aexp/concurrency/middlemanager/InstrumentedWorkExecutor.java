@@ -0,0 +1,317 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.lang.System.nanoTime;
+
+/**
+ * Decorates any WorkExecutor to measure where time goes: how long tasks wait to start (queue wait), how long they run,
+ * how many are queued or running right now, how many fail or are rejected, and how long callers spend blocked in the
+ * waitFor* methods.
+ *
+ * Measurements are kept in {@link LatencyHistogram}s and counters exposed via {@link InstrumentedWorkExecutorMXBean}
+ * (register this object with an MBeanServer to publish them), and are also passed to a {@link
+ * WorkExecutorMetricsSink}.
+ *
+ * Overhead budget: per task, one wrapper allocation, three {@code nanoTime()} calls and about ten uncontended atomic
+ * updates, which should stay under 250ns on current server hardware. {@code InstrumentedWorkExecutorBenchmark} in the
+ * benchmarks subproject measures it against the undecorated executor.
+ */
+@ThreadSafe
+public final class InstrumentedWorkExecutor extends WorkExecutorBase implements InstrumentedWorkExecutorMXBean {
+
+    private static final WorkExecutorMetricsSink NO_OP_SINK = new WorkExecutorMetricsSink() {
+        @Override
+        public void recordQueueWait(long nanos) {
+        }
+
+        @Override
+        public void recordExecution(long nanos, boolean failed) {
+        }
+
+        @Override
+        public void recordRejection() {
+        }
+
+        @Override
+        public void recordWaitBlocked(long nanos) {
+        }
+    };
+
+    private final WorkExecutor delegate;
+    private final WorkExecutorMetricsSink sink;
+
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram execution = new LatencyHistogram();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong waitBlockedNanos = new AtomicLong();
+
+    public InstrumentedWorkExecutor(WorkExecutor delegate) {
+        this(delegate, NO_OP_SINK);
+    }
+
+    public InstrumentedWorkExecutor(WorkExecutor delegate, WorkExecutorMetricsSink sink) {
+        this.delegate = delegate;
+        this.sink = sink;
+    }
+
+    @Nonnull
+    @Override
+    public <T extends Runnable> Future<T> submit(T runnable) {
+        return submitTask(new InstrumentedTask<T>(runnable, runnable));
+    }
+
+    @Nonnull
+    @Override
+    public <T> Future<T> submit(Callable<T> callable) {
+        return submitTask(new InstrumentedTask<T>(callable));
+    }
+
+    @Nonnull
+    @Override
+    public <T> List<Future<T>> submitAll(Collection<? extends Callable<T>> callables) {
+        List<InstrumentedTask<T>> tasks = new ArrayList<InstrumentedTask<T>>(callables.size());
+        for (Callable<T> callable : callables) {
+            tasks.add(new InstrumentedTask<T>(callable));
+        }
+
+        queued.addAndGet(tasks.size());
+        List<Future<T>> futures;
+        try {
+            futures = delegate.submitAll(tasks);
+        } catch (RuntimeException e) {
+            queued.addAndGet(-tasks.size());
+            rejected.addAndGet(tasks.size());
+            for (int i = 0; i < tasks.size(); i++) {
+                sink.recordRejection();
+            }
+            throw e;
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            tasks.get(i).watch(futures.get(i));
+        }
+
+        return futures;
+    }
+
+    private <T> Future<T> submitTask(InstrumentedTask<T> task) {
+        queued.incrementAndGet();
+        Future<T> future;
+        try {
+            future = delegate.submit((Callable<T>) task);
+        } catch (RuntimeException e) {
+            queued.decrementAndGet();
+            rejected.incrementAndGet();
+            sink.recordRejection();
+            throw e;
+        }
+
+        task.watch(future);
+        return future;
+    }
+
+    @Override
+    public boolean waitForCompletion(Future<?> f, long timeout, TimeUnit unit) {
+        long start = nanoTime();
+        try {
+            return delegate.waitForCompletion(f, timeout, unit);
+        } finally {
+            recordWaitBlocked(nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean waitForAnyToComplete(List<Future<?>> futures, long timeout, TimeUnit unit) {
+        long start = nanoTime();
+        try {
+            return delegate.waitForAnyToComplete(futures, timeout, unit);
+        } finally {
+            recordWaitBlocked(nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean waitForAllToComplete(List<Future<?>> futures, long timeout, TimeUnit unit) {
+        long start = nanoTime();
+        try {
+            return delegate.waitForAllToComplete(futures, timeout, unit);
+        } finally {
+            recordWaitBlocked(nanoTime() - start);
+        }
+    }
+
+    private void recordWaitBlocked(long nanos) {
+        waitBlockedNanos.addAndGet(nanos);
+        sink.recordWaitBlocked(nanos);
+    }
+
+    public LatencyHistogram getQueueWaitHistogram() {
+        return queueWait;
+    }
+
+    public LatencyHistogram getExecutionHistogram() {
+        return execution;
+    }
+
+    @Override
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    @Override
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    @Override
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    @Override
+    public long getQueueWaitNanosP50() {
+        return queueWait.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getQueueWaitNanosP99() {
+        return queueWait.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getQueueWaitNanosMax() {
+        return queueWait.getMax();
+    }
+
+    @Override
+    public long getExecutionNanosP50() {
+        return execution.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getExecutionNanosP99() {
+        return execution.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getExecutionNanosMax() {
+        return execution.getMax();
+    }
+
+    @Override
+    public long getWaitBlockedNanosTotal() {
+        return waitBlockedNanos.get();
+    }
+
+    /**
+     * Wraps the submitted work to time it. It doubles as the completion listener on the delegate's future, so that a
+     * task that's cancelled before it starts still leaves the queued count.
+     */
+    private final class InstrumentedTask<T> implements Callable<T>, Runnable {
+        private static final int QUEUED = 0;
+        private static final int STARTED = 1;
+        private static final int ABANDONED = 2;
+
+        private final Callable<T> callable;
+        private final Runnable runnable;
+        private final T runnableResult;
+        private final long submittedNanos = nanoTime();
+        volatile int state = QUEUED;
+
+        InstrumentedTask(Callable<T> callable) {
+            this.callable = callable;
+            this.runnable = null;
+            this.runnableResult = null;
+        }
+
+        InstrumentedTask(Runnable runnable, T runnableResult) {
+            this.callable = null;
+            this.runnable = runnable;
+            this.runnableResult = runnableResult;
+        }
+
+        void watch(Future<T> future) {
+            if (future instanceof NotifyingFuture) {
+                ((NotifyingFuture<?>) future).addCompletionListener(this);
+            }
+        }
+
+        @Override
+        public T call() throws Exception {
+            long start = nanoTime();
+            if (!STATE.compareAndSet(this, QUEUED, STARTED)) {
+                // the future was cancelled (and accounted for) before we got here
+                throw new IllegalStateException("Task was abandoned before it started");
+            }
+
+            queued.decrementAndGet();
+            inFlight.incrementAndGet();
+            long wait = start - submittedNanos;
+            queueWait.record(wait);
+            sink.recordQueueWait(wait);
+
+            boolean threw = true;
+            try {
+                T result;
+                if (callable != null) {
+                    result = callable.call();
+                } else {
+                    runnable.run();
+                    result = runnableResult;
+                }
+                threw = false;
+                return result;
+            } finally {
+                long elapsed = nanoTime() - start;
+                inFlight.decrementAndGet();
+                execution.record(elapsed);
+                if (threw) {
+                    failed.incrementAndGet();
+                } else {
+                    completed.incrementAndGet();
+                }
+                sink.recordExecution(elapsed, threw);
+            }
+        }
+
+        /**
+         * Completion listener: if the future completed without us ever starting, take the task out of the queued
+         * count.
+         */
+        @Override
+        public void run() {
+            if (STATE.compareAndSet(this, QUEUED, ABANDONED)) {
+                queued.decrementAndGet();
+            }
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<InstrumentedTask> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(InstrumentedTask.class, "state");
+}
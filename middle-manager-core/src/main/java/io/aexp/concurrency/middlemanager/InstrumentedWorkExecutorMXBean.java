@@ -0,0 +1,31 @@
+package io.aexp.concurrency.middlemanager;
+
+/**
+ * JMX view of an {@link InstrumentedWorkExecutor}. Latencies are in nanoseconds.
+ */
+public interface InstrumentedWorkExecutorMXBean {
+
+    int getQueuedCount();
+
+    int getInFlightCount();
+
+    long getCompletedCount();
+
+    long getFailedCount();
+
+    long getRejectedCount();
+
+    long getQueueWaitNanosP50();
+
+    long getQueueWaitNanosP99();
+
+    long getQueueWaitNanosMax();
+
+    long getExecutionNanosP50();
+
+    long getExecutionNanosP99();
+
+    long getExecutionNanosMax();
+
+    long getWaitBlockedNanosTotal();
+}
@@ -0,0 +1,263 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Decorates any WorkExecutor so that work submitted with the same key runs one task at a time, in submission order,
+ * while work for different keys runs in parallel.
+ *
+ * Each active key has a lane: a lock-free queue plus a count of its pending tasks. The submitter that takes a lane's
+ * count from zero hands the lane to the underlying executor, which runs its tasks in order. Once a lane has run all of
+ * its tasks it removes itself, so idle keys hold no state. To keep a hot key from monopolizing an underlying thread, a
+ * lane gives its thread back and re-submits itself after {@code maxTasksPerTurn} tasks.
+ *
+ * Work submitted without a key goes straight to the underlying executor.
+ *
+ * @param <K> key type; keys are compared with equals() and hashCode()
+ */
+@ThreadSafe
+public final class KeyedWorkExecutor<K> extends WorkExecutorBase {
+
+    private static final int DEFAULT_MAX_TASKS_PER_TURN = 16;
+
+    /**
+     * Lane count of a lane that has drained and been removed from the map. Submitters that find one start a new lane.
+     */
+    private static final int RETIRED = -1;
+
+    private final WorkExecutor delegate;
+    private final int maxTasksPerTurn;
+    private final ConcurrentMap<K, Lane> lanes = new ConcurrentHashMap<K, Lane>();
+
+    public KeyedWorkExecutor(WorkExecutor delegate) {
+        this(delegate, DEFAULT_MAX_TASKS_PER_TURN);
+    }
+
+    /**
+     * @param delegate        executor to run work on
+     * @param maxTasksPerTurn the most tasks a key runs before giving the underlying thread to other work
+     */
+    public KeyedWorkExecutor(WorkExecutor delegate, int maxTasksPerTurn) {
+        if (maxTasksPerTurn < 1) {
+            throw new IllegalArgumentException("maxTasksPerTurn must be positive");
+        }
+
+        this.delegate = delegate;
+        this.maxTasksPerTurn = maxTasksPerTurn;
+    }
+
+    @Nonnull
+    @Override
+    public <T extends Runnable> Future<T> submit(T runnable) {
+        return delegate.submit(runnable);
+    }
+
+    @Nonnull
+    @Override
+    public <T> Future<T> submit(Callable<T> callable) {
+        return delegate.submit(callable);
+    }
+
+    /**
+     * @param key      work with equal keys runs in submission order, one at a time
+     * @param runnable the work to run
+     * @param <T>      the type of the runnable
+     * @return a future that completes with the runnable
+     * @throws RejectedWorkException if the key's lane could not be handed to the underlying executor
+     */
+    @Nonnull
+    public <T extends Runnable> ListenableWorkFuture<T> submit(@Nonnull K key, T runnable) {
+        KeyedTask<T> task = new KeyedTask<T>(runnable, runnable);
+        enqueue(key, task);
+        return task;
+    }
+
+    /**
+     * @param key      work with equal keys runs in submission order, one at a time
+     * @param callable the work to run
+     * @param <T>      the type returned by the callable
+     * @return a future that completes with the callable's result
+     * @throws RejectedWorkException if the key's lane could not be handed to the underlying executor
+     */
+    @Nonnull
+    public <T> ListenableWorkFuture<T> submit(@Nonnull K key, Callable<T> callable) {
+        KeyedTask<T> task = new KeyedTask<T>(callable);
+        enqueue(key, task);
+        return task;
+    }
+
+    /**
+     * @return the number of keys with work queued or running
+     */
+    public int getActiveKeyCount() {
+        return lanes.size();
+    }
+
+    private void enqueue(K key, KeyedTask<?> task) {
+        while (true) {
+            Lane lane = lanes.get(key);
+            if (lane == null) {
+                Lane newLane = new Lane(key);
+                lane = lanes.putIfAbsent(key, newLane);
+                if (lane == null) {
+                    lane = newLane;
+                }
+            }
+
+            if (lane.offer(task)) {
+                return;
+            }
+
+            // retired between the lookup and the offer; help remove it in case its drainer hasn't yet
+            lanes.remove(key, lane);
+        }
+    }
+
+    /**
+     * The pending tasks for one key. {@code size} counts tasks that have been offered and not yet run; whoever takes
+     * it from 0 to 1 owns draining the lane until it takes it from 1 to {@link #RETIRED}.
+     */
+    private final class Lane implements Runnable {
+        private final K key;
+        private final Queue<KeyedTask<?>> tasks = new ConcurrentLinkedQueue<KeyedTask<?>>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        Lane(K key) {
+            this.key = key;
+        }
+
+        /**
+         * @return false if the lane has retired and can't take more work
+         */
+        boolean offer(KeyedTask<?> task) {
+            int previous;
+            do {
+                previous = size.get();
+                if (previous == RETIRED) {
+                    return false;
+                }
+            } while (!size.compareAndSet(previous, previous + 1));
+
+            tasks.offer(task);
+            if (previous == 0) {
+                dispatch();
+            }
+            return true;
+        }
+
+        /**
+         * Run up to a turn's worth of tasks, then either retire or re-submit the lane for another turn.
+         */
+        @Override
+        public void run() {
+            boolean retired = false;
+            try {
+                for (int i = 0; i < maxTasksPerTurn && !retired; i++) {
+                    KeyedTask<?> task = next();
+                    try {
+                        task.run();
+                    } finally {
+                        retired = finishOne();
+                    }
+                }
+            } finally {
+                if (!retired) {
+                    dispatch();
+                }
+            }
+        }
+
+        private void dispatch() {
+            try {
+                new LaneTurn(this).submitTo(delegate);
+            } catch (RejectedWorkException e) {
+                failAll(e);
+                throw e;
+            }
+        }
+
+        /**
+         * The underlying executor won't run this lane; fail everything in it so nobody waits forever.
+         */
+        void failAll(Throwable cause) {
+            do {
+                next().fail(cause);
+            } while (!finishOne());
+        }
+
+        /**
+         * A submitter may have counted its task but not offered it yet, so spin briefly if the queue looks empty.
+         */
+        private KeyedTask<?> next() {
+            KeyedTask<?> task;
+            while ((task = tasks.poll()) == null) {
+                Thread.yield();
+            }
+            return task;
+        }
+
+        /**
+         * @return true if that was the last task and the lane has retired
+         */
+        private boolean finishOne() {
+            while (true) {
+                int current = size.get();
+                if (current == 1) {
+                    if (size.compareAndSet(1, RETIRED)) {
+                        lanes.remove(key, this);
+                        return true;
+                    }
+                } else if (size.compareAndSet(current, current - 1)) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * One turn of a lane on the underlying executor.
+     */
+    private final class LaneTurn extends DelegatedTask<Void> {
+        private final Lane lane;
+
+        LaneTurn(Lane lane) {
+            super(lane, null);
+            this.lane = lane;
+        }
+
+        @Override
+        protected void released() {
+            // no op
+        }
+
+        @Override
+        void fail(Throwable t) {
+            super.fail(t);
+            // the underlying executor dropped this turn after accepting it
+            lane.failAll(t);
+        }
+    }
+
+    private static final class KeyedTask<T> extends NotifyingFutureTask<T> {
+
+        KeyedTask(Callable<T> callable) {
+            super(callable);
+        }
+
+        KeyedTask(Runnable runnable, T result) {
+            super(runnable, result);
+        }
+
+        void fail(Throwable t) {
+            setException(t);
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Admission control shared by the executors that cap how much work they hand to their delegate at once: up to {@link
+ * #getLimit()} tasks in flight, up to {@code maxQueued} more waiting here, and anything beyond that dealt with
+ * according to an {@link OverloadPolicy}.
+ *
+ * Admission is a CAS on a pair of counters, so submitters don't contend on a lock; only submitters blocked under
+ * {@link OverloadPolicy#BLOCK} use a monitor to wait for room.
+ */
+@ThreadSafe
+abstract class LimitedWorkExecutor extends WorkExecutorBase implements ListenableWorkExecutor {
+
+    private final WorkExecutor delegate;
+    private final int maxQueued;
+    private final OverloadPolicy policy;
+    private final long blockTimeoutNanos;
+    private final boolean timed;
+
+    final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<LimitedTask<?>> queue = new ConcurrentLinkedQueue<LimitedTask<?>>();
+
+    private final Object roomLock = new Object();
+    private final AtomicInteger blockedSubmitters = new AtomicInteger();
+
+    /**
+     * @param delegate          executor to run admitted work
+     * @param maxQueued         most tasks waiting here for an in-flight slot
+     * @param policy            what to do when both limits are reached
+     * @param blockTimeoutNanos how long {@link OverloadPolicy#BLOCK} waits for room before rejecting
+     * @param timed             whether to time tasks for {@link #onTaskRan(long, int)}
+     */
+    LimitedWorkExecutor(WorkExecutor delegate, int maxQueued, OverloadPolicy policy, long blockTimeoutNanos,
+            boolean timed) {
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("maxQueued must not be negative");
+        }
+
+        this.delegate = delegate;
+        this.maxQueued = maxQueued;
+        this.policy = policy;
+        this.blockTimeoutNanos = blockTimeoutNanos;
+        this.timed = timed;
+    }
+
+    @Nonnull
+    @Override
+    public <T extends Runnable> ListenableWorkFuture<T> submit(T runnable) {
+        return submitTask(new LimitedTask<T>(runnable, runnable, 0));
+    }
+
+    @Nonnull
+    @Override
+    public <T> ListenableWorkFuture<T> submit(Callable<T> callable) {
+        return submitTask(new LimitedTask<T>(callable, 0));
+    }
+
+    <T> ListenableWorkFuture<T> submitTask(LimitedTask<T> task) {
+        admit(task);
+        return task;
+    }
+
+    /**
+     * @return how many tasks may be in flight right now
+     */
+    public abstract int getLimit();
+
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * Called when a timed task finishes running, before its in-flight slot is given back.
+     *
+     * @param runNanos how long the task ran
+     * @param inFlight tasks in flight, including this one
+     */
+    void onTaskRan(long runNanos, int inFlight) {
+    }
+
+    /**
+     * Called when the delegate refuses a task outright.
+     */
+    void onTaskDropped() {
+    }
+
+    /**
+     * Take an in-flight slot, if there's room for one. Executors that share capacity with others override this and
+     * {@link #releaseSlot()} together.
+     */
+    boolean tryAcquireSlot() {
+        return tryAcquire(inFlight, getLimit());
+    }
+
+    /**
+     * Give back an in-flight slot taken by {@link #tryAcquireSlot()}.
+     */
+    void releaseSlot() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * @return true if tasks are queued or submitters blocked, waiting for an in-flight slot
+     */
+    boolean hasWaiters() {
+        return queued.get() > 0 || blockedSubmitters.get() > 0;
+    }
+
+    /**
+     * Queue a task to wait for an in-flight slot. Executors that order waiting work differently override this, {@link
+     * #pollQueued()}, {@link #pollDroppable()} and {@link #isQueueEmpty()} together.
+     */
+    void enqueue(LimitedTask<?> task) {
+        queue.offer(task);
+    }
+
+    /**
+     * @return the queued task to run next, or null if there's none
+     */
+    @Nullable
+    LimitedTask<?> pollQueued() {
+        return queue.poll();
+    }
+
+    /**
+     * @return the queued task to drop under {@link OverloadPolicy#DROP_OLDEST}, or null if there's none
+     */
+    @Nullable
+    LimitedTask<?> pollDroppable() {
+        return queue.poll();
+    }
+
+    boolean isQueueEmpty() {
+        return queue.isEmpty();
+    }
+
+    /**
+     * Capacity this executor shares with others has been given back: use it for queued work, or let a blocked
+     * submitter have it.
+     */
+    void onCapacityFreed() {
+        drain();
+        signalRoom();
+    }
+
+    private void admit(LimitedTask<?> task) {
+        if (tryAdmit(task)) {
+            return;
+        }
+
+        switch (policy) {
+            case BLOCK:
+                blockUntilAdmitted(task);
+                return;
+            case CALLER_RUNS:
+                task.runInline();
+                return;
+            case DROP_OLDEST:
+                if (isQueueEmpty()) {
+                    // nothing to drop; don't loop forever if the queue limit is 0
+                    break;
+                }
+                dropOldest();
+                if (tryAdmit(task)) {
+                    return;
+                }
+                break;
+            case FAIL_FAST:
+            default:
+                break;
+        }
+
+        throw new RejectedWorkException("Executor is saturated: " + getLimit() + " in flight and " + maxQueued
+                + " queued");
+    }
+
+    /**
+     * @return true if the task was dispatched or queued
+     */
+    private boolean tryAdmit(LimitedTask<?> task) {
+        if (tryAcquireSlot()) {
+            dispatch(task, true);
+            return true;
+        }
+
+        if (tryAcquire(queued, maxQueued)) {
+            enqueue(task);
+            // an in-flight slot may have freed up after we looked
+            drain();
+            return true;
+        }
+
+        return false;
+    }
+
+    private void blockUntilAdmitted(LimitedTask<?> task) {
+        long deadline = nanoTime() + blockTimeoutNanos;
+        blockedSubmitters.incrementAndGet();
+        try {
+            synchronized (roomLock) {
+                while (!tryAdmit(task)) {
+                    long remaining = deadline - nanoTime();
+                    if (remaining <= 0) {
+                        throw new RejectedWorkException("Timed out waiting for room in saturated executor");
+                    }
+
+                    NANOSECONDS.timedWait(roomLock, remaining);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedWorkException("Interrupted while waiting for room in saturated executor", e);
+        } finally {
+            blockedSubmitters.decrementAndGet();
+        }
+    }
+
+    private void dropOldest() {
+        LimitedTask<?> oldest = pollDroppable();
+        if (oldest != null) {
+            queued.decrementAndGet();
+            oldest.fail(new RejectedWorkException("Dropped to make room for newer work"));
+        }
+    }
+
+    /**
+     * Hand queued tasks to the delegate while there are in-flight slots for them.
+     */
+    private void drain() {
+        boolean freedQueueSlot = false;
+        while (!isQueueEmpty() && tryAcquireSlot()) {
+            LimitedTask<?> task = pollQueued();
+            if (task == null) {
+                releaseSlot();
+                continue;
+            }
+
+            queued.decrementAndGet();
+            freedQueueSlot = true;
+            if (task.isDone()) {
+                // cancelled while queued
+                releaseSlot();
+                continue;
+            }
+
+            dispatch(task, false);
+        }
+
+        if (freedQueueSlot) {
+            signalRoom();
+        }
+    }
+
+    /**
+     * @param task             task that already holds an in-flight slot
+     * @param submitterWaiting true if the submitting thread is still in submit() and should see the rejection
+     */
+    private void dispatch(LimitedTask<?> task, boolean submitterWaiting) {
+        try {
+            task.submitTo(delegate);
+        } catch (RuntimeException e) {
+            // whatever the delegate threw, the task never got there, so its slot must come back
+            onTaskDropped();
+            releaseSlot();
+            if (submitterWaiting) {
+                throw e;
+            }
+            task.fail(e);
+        }
+    }
+
+    private void onTaskFinished(LimitedTask<?> task) {
+        if (task.startNanos != 0) {
+            onTaskRan(nanoTime() - task.startNanos, inFlight.get());
+        }
+        releaseSlot();
+        drain();
+        signalRoom();
+    }
+
+    private void signalRoom() {
+        if (blockedSubmitters.get() > 0) {
+            synchronized (roomLock) {
+                roomLock.notifyAll();
+            }
+        }
+    }
+
+    static boolean tryAcquire(AtomicInteger permits, int max) {
+        while (true) {
+            int current = permits.get();
+            if (current >= max) {
+                return false;
+            }
+            if (permits.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    final class LimitedTask<T> extends DelegatedTask<T> {
+        final int priority;
+        /**
+         * Set by executors that age queued work.
+         */
+        long queuedNanos;
+        long startNanos;
+
+        LimitedTask(Callable<T> callable, int priority) {
+            super(callable);
+            this.priority = priority;
+        }
+
+        LimitedTask(Runnable runnable, T result, int priority) {
+            super(runnable, result);
+            this.priority = priority;
+        }
+
+        @Override
+        public void run() {
+            if (timed) {
+                startNanos = nanoTime();
+            }
+            super.run();
+        }
+
+        @Override
+        protected void released() {
+            onTaskFinished(this);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.Callable;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link WorkExecutor} whose futures accept callbacks, so that fan-out/fan-in pipelines can be assembled without
+ * holding a thread while waiting.
+ */
+@ThreadSafe
+public interface ListenableWorkExecutor extends WorkExecutor {
+
+    @Nonnull
+    @Override
+    <T extends Runnable> ListenableWorkFuture<T> submit(T runnable);
+
+    @Nonnull
+    @Override
+    <T> ListenableWorkFuture<T> submit(Callable<T> callable);
+}
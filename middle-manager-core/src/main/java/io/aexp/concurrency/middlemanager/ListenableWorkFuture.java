@@ -0,0 +1,43 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.Executor;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A future that can be composed with callbacks instead of blocking a thread in {@link #get()}. It covers the parts of
+ * {@code CompletionStage} we need while staying compatible with Java 6; see {@link ListenableWorkFutures} for the
+ * {@code allOf}/{@code anyOf} combinators.
+ *
+ * Callbacks registered via {@link #thenApply(WorkFunction)} and {@link #thenCompose(WorkFunction)} run on the thread
+ * that completes this future (or the calling thread if it's already complete), so they should be cheap. Use {@link
+ * #addListener(Runnable, Executor)} to hand off anything heavier.
+ */
+@ThreadSafe
+public interface ListenableWorkFuture<T> extends NotifyingFuture<T> {
+
+    /**
+     * Run the listener on the executor once this future completes by any means.
+     *
+     * @param listener listener to run
+     * @param executor executor to run it on
+     */
+    void addListener(@Nonnull Runnable listener, @Nonnull Executor executor);
+
+    /**
+     * @param fn  function to apply to the successful result of this future
+     * @param <U> result type of the function
+     * @return a future for the function's result. It fails if this future fails or the function throws, and is
+     * cancelled if this future is cancelled.
+     */
+    @Nonnull
+    <U> ListenableWorkFuture<U> thenApply(@Nonnull WorkFunction<? super T, ? extends U> fn);
+
+    /**
+     * @param fn  function that starts another asynchronous computation from the successful result of this future
+     * @param <U> result type of the resulting future
+     * @return a future that completes the same way as the future returned by the function
+     */
+    @Nonnull
+    <U> ListenableWorkFuture<U> thenCompose(@Nonnull WorkFunction<? super T, ? extends ListenableWorkFuture<U>> fn);
+}
@@ -0,0 +1,206 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Combinators for {@link ListenableWorkFuture}. Nothing here blocks: every result is produced by a completion listener
+ * on the input futures.
+ */
+@ThreadSafe
+public final class ListenableWorkFutures {
+
+    private ListenableWorkFutures() {
+    }
+
+    /**
+     * @param futures futures to combine
+     * @param <T>     result type
+     * @return a future for all of the results, in the same order as the input. It fails as soon as any input fails
+     * (with that input's cause) and is cancelled as soon as any input is cancelled.
+     */
+    @Nonnull
+    public static <T> ListenableWorkFuture<List<T>> allOf(@Nonnull List<? extends ListenableWorkFuture<? extends T>>
+            futures) {
+        final SettableWorkFuture<List<T>> result = new SettableWorkFuture<List<T>>();
+        final List<ListenableWorkFuture<? extends T>> inputs = new ArrayList<ListenableWorkFuture<? extends T>>(futures);
+        if (inputs.isEmpty()) {
+            result.set(Collections.<T>emptyList());
+            return result;
+        }
+
+        final AtomicInteger remaining = new AtomicInteger(inputs.size());
+        for (final ListenableWorkFuture<? extends T> input : inputs) {
+            input.addCompletionListener(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        getDone(input);
+                    } catch (CancellationException e) {
+                        result.cancel(false);
+                        return;
+                    } catch (ExecutionException e) {
+                        result.setException(e.getCause());
+                        return;
+                    }
+
+                    if (remaining.decrementAndGet() == 0) {
+                        List<T> values = new ArrayList<T>(inputs.size());
+                        for (ListenableWorkFuture<? extends T> done : inputs) {
+                            try {
+                                values.add(getDone(done));
+                            } catch (ExecutionException e) {
+                                // can't happen: every input succeeded or we wouldn't have got here
+                                result.setException(e.getCause());
+                                return;
+                            }
+                        }
+                        result.set(values);
+                    }
+                }
+            });
+        }
+
+        return result;
+    }
+
+    /**
+     * @param futures futures to race
+     * @param <T>     result type
+     * @return a future that completes the same way as whichever input completes first
+     */
+    @Nonnull
+    public static <T> ListenableWorkFuture<T> anyOf(@Nonnull List<? extends ListenableWorkFuture<? extends T>> futures) {
+        if (futures.isEmpty()) {
+            throw new IllegalArgumentException("Need at least one future");
+        }
+
+        final SettableWorkFuture<T> result = new SettableWorkFuture<T>();
+        for (final ListenableWorkFuture<? extends T> input : futures) {
+            input.addCompletionListener(new Runnable() {
+                @Override
+                public void run() {
+                    propagate(input, result);
+                }
+            });
+        }
+
+        return result;
+    }
+
+    /**
+     * Implementation of {@link ListenableWorkFuture#thenApply(WorkFunction)} in terms of completion listeners, for use
+     * by ListenableWorkFuture implementations.
+     */
+    @Nonnull
+    public static <T, U> ListenableWorkFuture<U> thenApply(@Nonnull final NotifyingFuture<T> source,
+            @Nonnull final WorkFunction<? super T, ? extends U> fn) {
+        final SettableWorkFuture<U> result = new SettableWorkFuture<U>();
+        source.addCompletionListener(new Runnable() {
+            @Override
+            public void run() {
+                T value;
+                try {
+                    value = getDone(source);
+                } catch (CancellationException e) {
+                    result.cancel(false);
+                    return;
+                } catch (ExecutionException e) {
+                    result.setException(e.getCause());
+                    return;
+                }
+
+                try {
+                    result.set(fn.apply(value));
+                } catch (Throwable t) {
+                    result.setException(t);
+                }
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Implementation of {@link ListenableWorkFuture#thenCompose(WorkFunction)} in terms of completion listeners, for
+     * use by ListenableWorkFuture implementations.
+     */
+    @Nonnull
+    public static <T, U> ListenableWorkFuture<U> thenCompose(@Nonnull final NotifyingFuture<T> source,
+            @Nonnull final WorkFunction<? super T, ? extends ListenableWorkFuture<U>> fn) {
+        final SettableWorkFuture<U> result = new SettableWorkFuture<U>();
+        source.addCompletionListener(new Runnable() {
+            @Override
+            public void run() {
+                final ListenableWorkFuture<U> next;
+                try {
+                    next = fn.apply(getDone(source));
+                } catch (CancellationException e) {
+                    result.cancel(false);
+                    return;
+                } catch (ExecutionException e) {
+                    result.setException(e.getCause());
+                    return;
+                } catch (Throwable t) {
+                    result.setException(t);
+                    return;
+                }
+
+                if (next == null) {
+                    result.setException(new NullPointerException("thenCompose function returned null"));
+                    return;
+                }
+
+                next.addCompletionListener(new Runnable() {
+                    @Override
+                    public void run() {
+                        propagate(next, result);
+                    }
+                });
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Complete the target the same way the (done) source completed.
+     */
+    static <T> void propagate(Future<? extends T> source, SettableWorkFuture<T> target) {
+        try {
+            target.set(getDone(source));
+        } catch (CancellationException e) {
+            target.cancel(false);
+        } catch (ExecutionException e) {
+            target.setException(e.getCause());
+        }
+    }
+
+    /**
+     * Get the result of a future that is known to be done, without being tripped up by the current thread's interrupt
+     * status.
+     */
+    static <T> T getDone(Future<T> future) throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.Future;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link Future} that can tell interested parties when it completes, so that waiting on it (or on many of it) doesn't
+ * require polling. The futures issued by the {@link WorkExecutor} implementations in this project all implement this,
+ * and {@link WorkExecutorBase} uses it to wait without time slicing.
+ */
+@ThreadSafe
+public interface NotifyingFuture<T> extends Future<T> {
+
+    /**
+     * Register a listener to be run once the future completes by any means (normally, exceptionally, or by
+     * cancellation). If the future has already completed, the listener is run immediately on the calling thread;
+     * otherwise it is run on whatever thread completes the future, so it should be quick and must not block.
+     *
+     * @param listener listener to run on completion
+     */
+    void addCompletionListener(@Nonnull Runnable listener);
+
+    /**
+     * Unregister a listener that is no longer interested in completion. This is best effort: a listener that races
+     * with completion may still be run once.
+     *
+     * @param listener listener previously passed to {@link #addCompletionListener(Runnable)}
+     */
+    void removeCompletionListener(@Nonnull Runnable listener);
+}
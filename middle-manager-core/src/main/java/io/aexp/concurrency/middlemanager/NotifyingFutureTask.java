@@ -0,0 +1,97 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * {@link FutureTask} that runs its completion listeners from {@link FutureTask#done()}, and builds {@link
+ * ListenableWorkFuture}'s callbacks on top of them. Listeners are kept in {@link CompletionListeners}.
+ */
+@ThreadSafe
+public class NotifyingFutureTask<T> extends FutureTask<T> implements ListenableWorkFuture<T> {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<NotifyingFutureTask, CompletionListeners.Node> LISTENERS =
+            AtomicReferenceFieldUpdater.newUpdater(NotifyingFutureTask.class, CompletionListeners.Node.class,
+                    "listeners");
+
+    private volatile CompletionListeners.Node listeners;
+    /**
+     * Set by cancel(true), which is the only cancellation that interrupts the runner.
+     */
+    private volatile boolean interruptOnCancel;
+
+    public NotifyingFutureTask(Callable<T> callable) {
+        super(callable);
+    }
+
+    public NotifyingFutureTask(Runnable runnable, T result) {
+        super(runnable, result);
+    }
+
+    /**
+     * Runs the task, then clears the interrupt that {@link #cancel(boolean) cancel(true)} may have sent while it ran,
+     * so that it isn't seen by whatever the thread runs next (a pooled container thread doesn't clear it for us).
+     * Interrupts from anywhere else, like a pool's shutdownNow, are left alone.
+     */
+    @Override
+    public void run() {
+        boolean cancelledBeforeRun = isCancelled();
+        super.run();
+        if (!cancelledBeforeRun && interruptOnCancel && isCancelled()) {
+            // FutureTask.run has already waited for cancel(true)'s interrupt to land
+            Thread.interrupted();
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        // recorded before cancelling, so that run() sees it by the time it sees the cancellation
+        if (mayInterruptIfRunning) {
+            interruptOnCancel = true;
+        }
+        return super.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public void addCompletionListener(@Nonnull Runnable listener) {
+        CompletionListeners.add(LISTENERS, this, listener);
+    }
+
+    @Override
+    public void removeCompletionListener(@Nonnull Runnable listener) {
+        CompletionListeners.remove(LISTENERS, this, listener);
+    }
+
+    @Override
+    public void addListener(@Nonnull final Runnable listener, @Nonnull final Executor executor) {
+        addCompletionListener(new Runnable() {
+            @Override
+            public void run() {
+                executor.execute(listener);
+            }
+        });
+    }
+
+    @Nonnull
+    @Override
+    public <U> ListenableWorkFuture<U> thenApply(@Nonnull WorkFunction<? super T, ? extends U> fn) {
+        return ListenableWorkFutures.thenApply(this, fn);
+    }
+
+    @Nonnull
+    @Override
+    public <U> ListenableWorkFuture<U> thenCompose(
+            @Nonnull WorkFunction<? super T, ? extends ListenableWorkFuture<U>> fn) {
+        return ListenableWorkFutures.thenCompose(this, fn);
+    }
+
+    @Override
+    protected void done() {
+        CompletionListeners.complete(LISTENERS, this);
+    }
+}
@@ -0,0 +1,24 @@
+package io.aexp.concurrency.middlemanager;
+
+/**
+ * What a bounded executor does with a submission when both its in-flight and queued limits are reached.
+ */
+public enum OverloadPolicy {
+    /**
+     * Block the submitting thread until there is room, up to a timeout, then throw {@link RejectedWorkException}.
+     */
+    BLOCK,
+    /**
+     * Run the task on the submitting thread, which naturally slows producers down.
+     */
+    CALLER_RUNS,
+    /**
+     * Throw {@link RejectedWorkException} immediately.
+     */
+    FAIL_FAST,
+    /**
+     * Make room by failing the oldest queued task with {@link RejectedWorkException}, then queue the new one. Behaves
+     * like FAIL_FAST if nothing is queued.
+     */
+    DROP_OLDEST
+}
@@ -0,0 +1,287 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Data-parallel loops over a {@link WorkExecutor} that don't cost a task and a future per element.
+ *
+ * A loop submits a fixed number of workers (by default one per processor), which share the range through a single
+ * cursor. Each claim takes half of the remaining range's fair share per worker, so chunks start coarse, which keeps
+ * claims rare, and shrink towards the end, so workers run out of work at about the same time even when elements cost
+ * different amounts. A range of n elements is claimed in roughly {@code 2 * workers * ln(n / workers)} chunks.
+ *
+ * The result is one future for the whole loop. It fails with the first exception any element throws, after which no
+ * more chunks are claimed; cancelling it likewise stops the loop at the next chunk boundary. A worker that the executor
+ * drops without running it (its future completes first, as when a WorkManager rejects or releases it) fails the loop
+ * with a {@link RejectedWorkException}, since its share of the range may never be claimed.
+ */
+@ThreadSafe
+public final class ParallelLoops {
+
+    private ParallelLoops() {
+    }
+
+    /**
+     * Run {@code body} for each index in {@code [from, to)}, using one worker per processor.
+     */
+    @Nonnull
+    public static ListenableWorkFuture<Void> parallelFor(@Nonnull WorkExecutor executor, int from, int to,
+            @Nonnull IndexedWork body) {
+        return parallelFor(executor, Runtime.getRuntime().availableProcessors(), from, to, body);
+    }
+
+    /**
+     * Run {@code body} for each index in {@code [from, to)}.
+     *
+     * @param executor    executor to run the workers on
+     * @param parallelism most workers to submit
+     * @param from        first index, inclusive
+     * @param to          last index, exclusive
+     * @param body        run once per index, in no particular order and possibly concurrently
+     * @return a future that completes once every index has been processed
+     */
+    @Nonnull
+    public static ListenableWorkFuture<Void> parallelFor(@Nonnull WorkExecutor executor, int parallelism, int from,
+            int to, @Nonnull final IndexedWork body) {
+        return new Loop<Void>(from, to, parallelism) {
+            @Override
+            Worker newWorker() {
+                return new Worker() {
+                    @Override
+                    void runChunk(int start, int end) throws Exception {
+                        for (int i = start; i < end; i++) {
+                            body.run(i);
+                        }
+                    }
+
+                    @Override
+                    void finish() {
+                        // no op
+                    }
+                };
+            }
+
+            @Override
+            Void getResult() {
+                return null;
+            }
+        }.start(executor);
+    }
+
+    /**
+     * Map each input and combine the results, using one worker per processor.
+     */
+    @Nonnull
+    public static <T, U> ListenableWorkFuture<U> mapReduce(@Nonnull WorkExecutor executor, @Nonnull List<T> inputs,
+            @Nonnull WorkFunction<? super T, ? extends U> mapper, @Nonnull WorkReducer<U> reducer, U identity) {
+        return mapReduce(executor, Runtime.getRuntime().availableProcessors(), inputs, mapper, reducer, identity);
+    }
+
+    /**
+     * Map each input and combine the results. Each worker folds its own elements into a partial result, and the
+     * partial results are combined as the workers finish, so the reducer is only contended once per worker.
+     *
+     * @param executor    executor to run the workers on
+     * @param parallelism most workers to submit
+     * @param inputs      inputs to map; copied first unless it's a {@link RandomAccess} list
+     * @param mapper      applied to each input, in no particular order and possibly concurrently
+     * @param reducer     combines mapped values and partial results; must be associative and commutative
+     * @param identity    the starting point of every worker's fold, and the result if there are no inputs
+     * @return a future for every input's mapped value combined
+     */
+    @Nonnull
+    public static <T, U> ListenableWorkFuture<U> mapReduce(@Nonnull WorkExecutor executor, int parallelism,
+            @Nonnull List<T> inputs, @Nonnull final WorkFunction<? super T, ? extends U> mapper,
+            @Nonnull final WorkReducer<U> reducer, final U identity) {
+        final List<T> list = inputs instanceof RandomAccess ? inputs : new ArrayList<T>(inputs);
+
+        return new Loop<U>(0, list.size(), parallelism) {
+            // guarded by this
+            private U total = identity;
+
+            @Override
+            Worker newWorker() {
+                return new Worker() {
+                    private U partial = identity;
+
+                    @Override
+                    void runChunk(int start, int end) throws Exception {
+                        for (int i = start; i < end; i++) {
+                            partial = reducer.reduce(partial, mapper.apply(list.get(i)));
+                        }
+                    }
+
+                    @Override
+                    void finish() throws Exception {
+                        combine(partial);
+                    }
+                };
+            }
+
+            private synchronized void combine(U partial) throws Exception {
+                total = reducer.reduce(total, partial);
+            }
+
+            @Override
+            synchronized U getResult() {
+                return total;
+            }
+        }.start(executor);
+    }
+
+    /**
+     * The state shared by a loop's workers.
+     *
+     * @param <R> result type
+     */
+    private abstract static class Loop<R> {
+        final SettableWorkFuture<R> result = new SettableWorkFuture<R>();
+        private final int to;
+        private final int parallelism;
+        private final AtomicInteger cursor;
+        /**
+         * Workers yet to finish, plus one held by {@link #start(WorkExecutor)} until it's done submitting.
+         */
+        private final AtomicInteger unfinished;
+
+        Loop(int from, int to, int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be positive");
+            }
+
+            this.to = to;
+            this.parallelism = (int) Math.max(1, Math.min(parallelism, (long) to - from));
+            this.cursor = new AtomicInteger(from);
+            this.unfinished = new AtomicInteger(this.parallelism + 1);
+        }
+
+        abstract Worker newWorker();
+
+        /**
+         * Called once, after every worker has finished without failure.
+         */
+        abstract R getResult() throws Exception;
+
+        ListenableWorkFuture<R> start(WorkExecutor executor) {
+            int submitted = 0;
+            try {
+                if (cursor.get() < to) {
+                    for (; submitted < parallelism; submitted++) {
+                        Worker worker = newWorker();
+                        worker.watch(executor.submit(worker));
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (submitted == 0) {
+                    result.cancel(false);
+                    throw e;
+                }
+                // the workers we did submit will get through the range
+            }
+
+            for (int i = submitted; i < parallelism + 1; i++) {
+                workerDone();
+            }
+            return result;
+        }
+
+        /**
+         * Claim the next chunk, half of the remaining range's fair share per worker.
+         *
+         * @param chunk receives the chunk's start (inclusive) and end (exclusive)
+         * @return false if there's nothing left to claim, or the loop is already done
+         */
+        private boolean claim(int[] chunk) {
+            while (!result.isDone()) {
+                int start = cursor.get();
+                if (start >= to) {
+                    return false;
+                }
+
+                long remaining = (long) to - start;
+                int end = (int) (start + Math.max(1, remaining / (2 * parallelism)));
+                if (cursor.compareAndSet(start, end)) {
+                    chunk[0] = start;
+                    chunk[1] = end;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void workerDone() {
+            if (unfinished.decrementAndGet() > 0 || result.isDone()) {
+                return;
+            }
+
+            try {
+                result.set(getResult());
+            } catch (Throwable t) {
+                result.setException(t);
+            }
+        }
+
+        abstract class Worker implements Runnable {
+            /**
+             * Set by whichever comes first: this worker running, or its future completing without it having run.
+             */
+            private final AtomicBoolean settled = new AtomicBoolean();
+
+            abstract void runChunk(int start, int end) throws Exception;
+
+            /**
+             * Called once this worker can't claim any more of the range.
+             */
+            abstract void finish() throws Exception;
+
+            /**
+             * Count this worker as done if its future completes without it ever running.
+             */
+            void watch(Future<?> future) {
+                if (!(future instanceof NotifyingFuture)) {
+                    return;
+                }
+
+                ((NotifyingFuture<?>) future).addCompletionListener(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (settled.compareAndSet(false, true)) {
+                            result.setException(new RejectedWorkException("Loop worker was dropped without running"));
+                            workerDone();
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public final void run() {
+                if (!settled.compareAndSet(false, true)) {
+                    // dropped, and already counted as such
+                    return;
+                }
+
+                try {
+                    int[] chunk = new int[2];
+                    while (claim(chunk)) {
+                        runChunk(chunk[0], chunk[1]);
+                    }
+                    if (!result.isDone()) {
+                        finish();
+                    }
+                } catch (Throwable t) {
+                    // the first failure wins; the other workers notice at their next claim
+                    result.setException(t);
+                } finally {
+                    workerDone();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Like {@link BoundedWorkExecutor}, but queued work is started in priority order rather than first come, first served,
+ * so that interactive work doesn't wait behind a backlog of bulk work.
+ *
+ * Priorities run from 0 (lowest, and what the plain submit methods use) to {@code levels - 1}. Each level is a
+ * lock-free FIFO queue. Queued work ages: for every {@code agingInterval} a task has waited, it counts as one level
+ * higher, so a steady stream of high-priority work can delay low-priority work but never starve it.
+ *
+ * As with any WorkExecutor decorator, the delegate can be any backend: put one in front of a {@code
+ * WorkManagerWorkExecutor} (with {@code maxInFlight} no bigger than the WorkManager's pool) to give a legacy WebSphere
+ * pool priorities. Only work queued here is prioritised, so keep {@code maxInFlight} close to the delegate's thread
+ * count so that work queues here rather than in the delegate.
+ */
+@ThreadSafe
+public final class PriorityWorkExecutor extends LimitedWorkExecutor {
+
+    private final int maxInFlight;
+    private final long agingNanos;
+    private final Queue<LimitedTask<?>>[] levels;
+
+    /**
+     * @param delegate      executor to run admitted work
+     * @param levels        how many priorities there are
+     * @param maxInFlight   most tasks handed to the delegate at once
+     * @param maxQueued     most tasks waiting here, across every priority, for an in-flight slot
+     * @param policy        what to do when both limits are reached; use the other constructor for {@link
+     *                      OverloadPolicy#BLOCK}. {@link OverloadPolicy#DROP_OLDEST} drops the oldest of the lowest
+     *                      priority work queued.
+     * @param agingInterval how long queued work waits before counting as one level higher
+     * @param unit          unit of agingInterval
+     */
+    public PriorityWorkExecutor(WorkExecutor delegate, int levels, int maxInFlight, int maxQueued,
+            OverloadPolicy policy, long agingInterval, TimeUnit unit) {
+        this(delegate, levels, maxInFlight, maxQueued, policy, 0, NANOSECONDS, agingInterval, unit);
+    }
+
+    /**
+     * @param delegate      executor to run admitted work
+     * @param levels        how many priorities there are
+     * @param maxInFlight   most tasks handed to the delegate at once
+     * @param maxQueued     most tasks waiting here, across every priority, for an in-flight slot
+     * @param policy        what to do when both limits are reached
+     * @param blockTimeout  how long {@link OverloadPolicy#BLOCK} waits for room before rejecting
+     * @param blockUnit     unit of blockTimeout
+     * @param agingInterval how long queued work waits before counting as one level higher
+     * @param agingUnit     unit of agingInterval
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public PriorityWorkExecutor(WorkExecutor delegate, int levels, int maxInFlight, int maxQueued,
+            OverloadPolicy policy, long blockTimeout, TimeUnit blockUnit, long agingInterval, TimeUnit agingUnit) {
+        super(delegate, maxQueued, policy, blockUnit.toNanos(blockTimeout), false);
+        if (levels < 1) {
+            throw new IllegalArgumentException("Need at least one level");
+        }
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        if (agingInterval <= 0) {
+            throw new IllegalArgumentException("agingInterval must be positive");
+        }
+
+        this.maxInFlight = maxInFlight;
+        this.agingNanos = agingUnit.toNanos(agingInterval);
+        this.levels = new Queue[levels];
+        for (int i = 0; i < levels; i++) {
+            this.levels[i] = new ConcurrentLinkedQueue<LimitedTask<?>>();
+        }
+    }
+
+    /**
+     * @param priority from 0 (lowest) to {@code levels - 1}
+     */
+    @Nonnull
+    public <T extends Runnable> ListenableWorkFuture<T> submit(T runnable, int priority) {
+        return submitTask(new LimitedTask<T>(runnable, runnable, checkPriority(priority)));
+    }
+
+    /**
+     * @param priority from 0 (lowest) to {@code levels - 1}
+     */
+    @Nonnull
+    public <T> ListenableWorkFuture<T> submit(Callable<T> callable, int priority) {
+        return submitTask(new LimitedTask<T>(callable, checkPriority(priority)));
+    }
+
+    @Override
+    public int getLimit() {
+        return maxInFlight;
+    }
+
+    /**
+     * @return how many tasks of the given priority are waiting here
+     */
+    public int getQueuedCount(int priority) {
+        return levels[checkPriority(priority)].size();
+    }
+
+    @Override
+    void enqueue(LimitedTask<?> task) {
+        task.queuedNanos = nanoTime();
+        levels[task.priority].offer(task);
+    }
+
+    /**
+     * The head of each level is the oldest task there, and so the most aged; run whichever head's aged priority is
+     * highest, preferring the higher level on a tie.
+     */
+    @Nullable
+    @Override
+    LimitedTask<?> pollQueued() {
+        while (true) {
+            long now = nanoTime();
+            int best = -1;
+            long bestPriority = Long.MIN_VALUE;
+            for (int i = levels.length - 1; i >= 0; i--) {
+                LimitedTask<?> head = levels[i].peek();
+                if (head == null) {
+                    continue;
+                }
+
+                long aged = i + (now - head.queuedNanos) / agingNanos;
+                if (aged > bestPriority) {
+                    best = i;
+                    bestPriority = aged;
+                }
+            }
+
+            if (best < 0) {
+                return null;
+            }
+
+            LimitedTask<?> task = levels[best].poll();
+            if (task != null) {
+                return task;
+            }
+            // someone else took it; look again
+        }
+    }
+
+    @Nullable
+    @Override
+    LimitedTask<?> pollDroppable() {
+        for (Queue<LimitedTask<?>> level : levels) {
+            LimitedTask<?> task = level.poll();
+            if (task != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    boolean isQueueEmpty() {
+        for (Queue<LimitedTask<?>> level : levels) {
+            if (!level.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int checkPriority(int priority) {
+        if (priority < 0 || priority >= levels.length) {
+            throw new IllegalArgumentException("Priority must be from 0 to " + (levels.length - 1) + ", not "
+                    + priority);
+        }
+        return priority;
+    }
+}
@@ -0,0 +1,20 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Thrown by a {@link WorkExecutor} (or used to fail a future it issued) when work is not accepted for execution,
+ * whether because the underlying executor or WorkManager refused it or because an admission limit was reached.
+ */
+public class RejectedWorkException extends RejectedExecutionException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RejectedWorkException(String message) {
+        super(message);
+    }
+
+    public RejectedWorkException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,145 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Splits submissions between two WorkExecutors, so that a migration (e.g. from {@code WorkManagerWorkExecutor} to
+ * {@link ExecutorServiceWorkExecutor}) can be ramped up gradually instead of switched all at once.
+ *
+ * A percentage of submissions, adjustable at runtime, goes to the candidate executor and the rest to the current one.
+ * Each side is measured by its own {@link InstrumentedWorkExecutor}, so queue wait, execution time and failure counts
+ * on real traffic can be compared side by side before committing to the candidate.
+ *
+ * Routing takes one atomic increment per submission. Submissions are spread evenly rather than randomly: at 10%, every
+ * tenth submission goes to the candidate.
+ */
+@ThreadSafe
+public final class RoutingWorkExecutor extends WorkExecutorBase {
+
+    private final InstrumentedWorkExecutor current;
+    private final InstrumentedWorkExecutor candidate;
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile int candidatePercent;
+
+    /**
+     * @param current          the executor being migrated away from
+     * @param candidate        the executor being migrated to
+     * @param candidatePercent percentage of submissions to send to the candidate, from 0 to 100
+     */
+    public RoutingWorkExecutor(WorkExecutor current, WorkExecutor candidate, int candidatePercent) {
+        this(new InstrumentedWorkExecutor(current), new InstrumentedWorkExecutor(candidate), candidatePercent);
+    }
+
+    /**
+     * @param current          the executor being migrated away from, instrumented as you like (e.g. with a sink)
+     * @param candidate        the executor being migrated to, instrumented as you like
+     * @param candidatePercent percentage of submissions to send to the candidate, from 0 to 100
+     */
+    public RoutingWorkExecutor(InstrumentedWorkExecutor current, InstrumentedWorkExecutor candidate,
+            int candidatePercent) {
+        this.current = current;
+        this.candidate = candidate;
+        setCandidatePercent(candidatePercent);
+    }
+
+    @Nonnull
+    @Override
+    public <T extends Runnable> Future<T> submit(T runnable) {
+        return route().submit(runnable);
+    }
+
+    @Nonnull
+    @Override
+    public <T> Future<T> submit(Callable<T> callable) {
+        return route().submit(callable);
+    }
+
+    /**
+     * Each side gets its share of the batch as one batch of its own, so it keeps whatever it does to submit batches
+     * efficiently.
+     */
+    @Nonnull
+    @Override
+    public <T> List<Future<T>> submitAll(Collection<? extends Callable<T>> callables) {
+        boolean[] toCandidate = new boolean[callables.size()];
+        List<Callable<T>> forCurrent = new ArrayList<Callable<T>>();
+        List<Callable<T>> forCandidate = new ArrayList<Callable<T>>();
+        int i = 0;
+        for (Callable<T> callable : callables) {
+            toCandidate[i] = route() == candidate;
+            (toCandidate[i] ? forCandidate : forCurrent).add(callable);
+            i++;
+        }
+
+        List<Future<T>> currentFutures = current.submitAll(forCurrent);
+        List<Future<T>> candidateFutures;
+        try {
+            candidateFutures = candidate.submitAll(forCandidate);
+        } catch (RuntimeException e) {
+            cancelAll(currentFutures);
+            throw e;
+        }
+
+        // back into submission order
+        List<Future<T>> futures = new ArrayList<Future<T>>(toCandidate.length);
+        int nextCurrent = 0;
+        int nextCandidate = 0;
+        for (boolean routed : toCandidate) {
+            futures.add(routed ? candidateFutures.get(nextCandidate++) : currentFutures.get(nextCurrent++));
+        }
+        return futures;
+    }
+
+    /**
+     * @param candidatePercent percentage of submissions to send to the candidate from now on, from 0 to 100
+     */
+    public void setCandidatePercent(int candidatePercent) {
+        if (candidatePercent < 0 || candidatePercent > 100) {
+            throw new IllegalArgumentException("Percentage must be from 0 to 100, not " + candidatePercent);
+        }
+
+        this.candidatePercent = candidatePercent;
+    }
+
+    public int getCandidatePercent() {
+        return candidatePercent;
+    }
+
+    /**
+     * @return measurements of the work sent to the current executor
+     */
+    public InstrumentedWorkExecutor getCurrentMetrics() {
+        return current;
+    }
+
+    /**
+     * @return measurements of the work sent to the candidate executor
+     */
+    public InstrumentedWorkExecutor getCandidateMetrics() {
+        return candidate;
+    }
+
+    /**
+     * Submission n goes to the candidate when {@code n * percent / 100} ticks over, which spreads the candidate's
+     * share evenly through the stream.
+     */
+    private WorkExecutor route() {
+        int percent = candidatePercent;
+        if (percent == 0) {
+            return current;
+        }
+        if (percent == 100) {
+            return candidate;
+        }
+
+        long n = sequence.getAndIncrement();
+        return (n + 1) * percent / 100 > n * percent / 100 ? candidate : current;
+    }
+}
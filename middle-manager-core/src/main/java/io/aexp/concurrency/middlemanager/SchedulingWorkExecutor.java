@@ -0,0 +1,424 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Decorates any WorkExecutor with delayed and periodic submission. When a task comes due, it is submitted to the
+ * underlying executor, so e.g. a WorkManagerWorkExecutor gets timers without a thread pool of its own.
+ *
+ * Timers live in a hierarchical timing wheel: {@value #LEVELS} wheels of {@value #WHEEL_SIZE} slots, each slot of a
+ * level spanning a whole revolution of the level below. Scheduling and cancelling are O(1) regardless of how many
+ * timers are pending; a timer is moved down a level at most once per level as it approaches its deadline.
+ *
+ * A single ticker thread owns the wheel and advances it once per tick (1ms by default), so deadlines are rounded up to
+ * whole ticks. Schedulers and cancellations reach it through lock-free queues, and it sleeps when nothing is pending.
+ * Because the ticker submits due work itself, an underlying executor that blocks on submission delays other timers.
+ * Call {@link #shutdown()} to stop the ticker when the executor is no longer needed.
+ */
+@ThreadSafe
+public final class SchedulingWorkExecutor extends WorkExecutorBase {
+
+    private static final int WHEEL_BITS = 9;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 6;
+    /**
+     * Delays are capped so that every deadline fits in the top wheel; at 1ms ticks this is several hundred thousand
+     * years.
+     */
+    private static final long MAX_DELAY_TICKS = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    private static final ThreadFactory DEFAULT_THREAD_FACTORY = new ThreadFactory() {
+        @Override
+        public Thread newThread(@Nonnull Runnable r) {
+            Thread thread = new Thread(r, "middle-manager-timer");
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+
+    private final WorkExecutor delegate;
+    private final long tickNanos;
+    private final long startNanos = nanoTime();
+    private final Thread ticker;
+
+    private final Queue<ScheduledTask<?>> incoming = new ConcurrentLinkedQueue<ScheduledTask<?>>();
+    private final Queue<ScheduledTask<?>> cancelled = new ConcurrentLinkedQueue<ScheduledTask<?>>();
+    private volatile boolean tickerIdle;
+    private volatile boolean shutdown;
+
+    // only touched by the ticker thread
+    private final ScheduledTask<?>[][] wheels = new ScheduledTask<?>[LEVELS][WHEEL_SIZE];
+    private long currentTick;
+    private int timerCount;
+
+    public SchedulingWorkExecutor(WorkExecutor delegate) {
+        this(delegate, 1, MILLISECONDS, DEFAULT_THREAD_FACTORY);
+    }
+
+    /**
+     * @param delegate      executor to run work on once it's due
+     * @param tick          timer resolution
+     * @param unit          unit of tick
+     * @param threadFactory creates the ticker thread
+     */
+    public SchedulingWorkExecutor(WorkExecutor delegate, long tick, TimeUnit unit, ThreadFactory threadFactory) {
+        if (tick <= 0) {
+            throw new IllegalArgumentException("tick must be positive");
+        }
+
+        this.delegate = delegate;
+        this.tickNanos = unit.toNanos(tick);
+        this.ticker = threadFactory.newThread(new Ticker());
+        ticker.start();
+    }
+
+    @Nonnull
+    @Override
+    public <T extends Runnable> Future<T> submit(T runnable) {
+        return delegate.submit(runnable);
+    }
+
+    @Nonnull
+    @Override
+    public <T> Future<T> submit(Callable<T> callable) {
+        return delegate.submit(callable);
+    }
+
+    /**
+     * @param callable the work to run
+     * @param delay    how long from now to submit it to the underlying executor
+     * @param unit     unit of delay
+     * @param <T>      the type returned by the callable
+     * @return a future that completes with the callable's result. Cancelling it before it's due removes the timer.
+     * @throws RejectedWorkException if this executor has been shut down
+     */
+    @Nonnull
+    public <T> ListenableWorkFuture<T> schedule(Callable<T> callable, long delay, TimeUnit unit) {
+        ScheduledTask<T> task = new ScheduledTask<T>(callable, 0);
+        task.deadlineTick = deadlineTick(unit.toNanos(delay));
+        schedule(task);
+        return task;
+    }
+
+    /**
+     * @param runnable the work to run
+     * @param delay    how long from now to submit it to the underlying executor
+     * @param unit     unit of delay
+     * @param <T>      the type of the runnable
+     * @return a future that completes with the runnable. Cancelling it before it's due removes the timer.
+     * @throws RejectedWorkException if this executor has been shut down
+     */
+    @Nonnull
+    public <T extends Runnable> ListenableWorkFuture<T> schedule(T runnable, long delay, TimeUnit unit) {
+        ScheduledTask<T> task = new ScheduledTask<T>(runnable, runnable, 0);
+        task.deadlineTick = deadlineTick(unit.toNanos(delay));
+        schedule(task);
+        return task;
+    }
+
+    /**
+     * Run the provided work every period, as in {@link java.util.concurrent.ScheduledExecutorService#scheduleAtFixedRate(Runnable,
+     * long, long, TimeUnit)}: if a run overruns its period the next one starts late, but runs never overlap.
+     *
+     * @param runnable     the work to run
+     * @param initialDelay how long from now to the first run
+     * @param period       time between the starts of successive runs; rounded up to whole ticks
+     * @param unit         unit of initialDelay and period
+     * @return a future that only completes when cancelled, or exceptionally if a run throws, which ends the schedule
+     * @throws RejectedWorkException if this executor has been shut down
+     */
+    @Nonnull
+    public ListenableWorkFuture<Void> scheduleAtFixedRate(Runnable runnable, long initialDelay, long period,
+            TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+
+        long periodTicks = Math.max(1, ceilDiv(unit.toNanos(period), tickNanos));
+        ScheduledTask<Void> task = new ScheduledTask<Void>(runnable, null, periodTicks);
+        task.deadlineTick = deadlineTick(unit.toNanos(initialDelay));
+        schedule(task);
+        return task;
+    }
+
+    /**
+     * Stop the ticker and cancel all pending timers. Work already submitted to the underlying executor is unaffected.
+     */
+    public void shutdown() {
+        shutdown = true;
+        LockSupport.unpark(ticker);
+    }
+
+    private void schedule(ScheduledTask<?> task) {
+        if (shutdown) {
+            throw new RejectedWorkException("Executor has been shut down");
+        }
+
+        enqueue(task);
+    }
+
+    private void enqueue(ScheduledTask<?> task) {
+        incoming.offer(task);
+        if (shutdown) {
+            // the ticker may already have cleaned up and gone
+            task.cancel(false);
+        } else if (tickerIdle) {
+            LockSupport.unpark(ticker);
+        }
+    }
+
+    private long deadlineTick(long delayNanos) {
+        long delayTicks = Math.min(ceilDiv(Math.max(0, delayNanos), tickNanos), MAX_DELAY_TICKS);
+        return ceilDiv(nanoTime() - startNanos, tickNanos) + delayTicks;
+    }
+
+    private long ticksNow() {
+        return (nanoTime() - startNanos) / tickNanos;
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return a / b + (a % b == 0 ? 0 : 1);
+    }
+
+    /**
+     * Ticker thread only.
+     */
+    private void advance() {
+        long tick = ++currentTick;
+
+        // cascade from the top, so timers moving down several levels get placed again on the way
+        for (int level = LEVELS - 1; level > 0; level--) {
+            int shift = WHEEL_BITS * level;
+            if ((tick & ((1L << shift) - 1)) == 0) {
+                ScheduledTask<?> task = detach(level, (int) (tick >>> shift) & WHEEL_MASK);
+                while (task != null) {
+                    ScheduledTask<?> next = task.next;
+                    task.next = null;
+                    insert(task);
+                    task = next;
+                }
+            }
+        }
+
+        ScheduledTask<?> task = detach(0, (int) tick & WHEEL_MASK);
+        while (task != null) {
+            ScheduledTask<?> next = task.next;
+            task.next = null;
+            task.dispatch();
+            task = next;
+        }
+    }
+
+    /**
+     * Ticker thread only.
+     */
+    private void insert(ScheduledTask<?> task) {
+        if (task.isDone()) {
+            return;
+        }
+
+        long delta = task.deadlineTick - currentTick;
+        if (delta <= 0) {
+            task.dispatch();
+            return;
+        }
+
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        int slot = (int) (task.deadlineTick >>> (WHEEL_BITS * level)) & WHEEL_MASK;
+
+        ScheduledTask<?> head = wheels[level][slot];
+        task.next = head;
+        task.prev = null;
+        if (head != null) {
+            head.prev = task;
+        }
+        wheels[level][slot] = task;
+        task.level = level;
+        task.slot = slot;
+        task.inWheel = true;
+        timerCount++;
+    }
+
+    /**
+     * Ticker thread only.
+     *
+     * @return the first of the slot's timers, still linked to the rest via next
+     */
+    private ScheduledTask<?> detach(int level, int slot) {
+        ScheduledTask<?> head = wheels[level][slot];
+        wheels[level][slot] = null;
+        for (ScheduledTask<?> task = head; task != null; task = task.next) {
+            task.prev = null;
+            task.inWheel = false;
+            timerCount--;
+        }
+        return head;
+    }
+
+    /**
+     * Ticker thread only.
+     */
+    private void unlink(ScheduledTask<?> task) {
+        if (!task.inWheel) {
+            return;
+        }
+
+        if (task.prev == null) {
+            wheels[task.level][task.slot] = task.next;
+        } else {
+            task.prev.next = task.next;
+        }
+        if (task.next != null) {
+            task.next.prev = task.prev;
+        }
+        task.prev = null;
+        task.next = null;
+        task.inWheel = false;
+        timerCount--;
+    }
+
+    private final class Ticker implements Runnable {
+        @Override
+        public void run() {
+            try {
+                while (!shutdown) {
+                    if (timerCount == 0) {
+                        // nothing pending, so there's nothing to expire in the ticks we slept through
+                        currentTick = Math.max(currentTick, ticksNow());
+                    }
+
+                    ScheduledTask<?> task;
+                    while ((task = cancelled.poll()) != null) {
+                        unlink(task);
+                    }
+                    while ((task = incoming.poll()) != null) {
+                        insert(task);
+                    }
+
+                    if (timerCount == 0) {
+                        tickerIdle = true;
+                        if (incoming.isEmpty() && !shutdown) {
+                            LockSupport.park(this);
+                        }
+                        tickerIdle = false;
+                        continue;
+                    }
+
+                    long nowTick = ticksNow();
+                    while (currentTick < nowTick && timerCount > 0) {
+                        advance();
+                    }
+
+                    long sleepNanos = startNanos + (currentTick + 1) * tickNanos - nanoTime();
+                    if (sleepNanos > 0) {
+                        LockSupport.parkNanos(this, sleepNanos);
+                    }
+                }
+            } finally {
+                for (ScheduledTask<?>[] wheel : wheels) {
+                    for (ScheduledTask<?> head : wheel) {
+                        for (ScheduledTask<?> task = head; task != null; task = task.next) {
+                            task.cancel(false);
+                        }
+                    }
+                }
+                ScheduledTask<?> task;
+                while ((task = incoming.poll()) != null) {
+                    task.cancel(false);
+                }
+            }
+        }
+    }
+
+    private final class ScheduledTask<T> extends NotifyingFutureTask<T> {
+        /**
+         * 0 for one-shot tasks.
+         */
+        private final long periodTicks;
+        /**
+         * Written before the task is handed to the ticker, read by the ticker.
+         */
+        long deadlineTick;
+        /**
+         * Counts runs, so a listener on the underlying executor's future can tell whether that submission ran.
+         */
+        private volatile int runs;
+
+        // wheel bookkeeping, ticker thread only
+        ScheduledTask<?> prev;
+        ScheduledTask<?> next;
+        int level;
+        int slot;
+        boolean inWheel;
+
+        ScheduledTask(Callable<T> callable, long periodTicks) {
+            super(callable);
+            this.periodTicks = periodTicks;
+        }
+
+        ScheduledTask(Runnable runnable, T result, long periodTicks) {
+            super(runnable, result);
+            this.periodTicks = periodTicks;
+        }
+
+        @Override
+        public void run() {
+            runs++;
+            if (periodTicks == 0) {
+                super.run();
+            } else if (runAndReset()) {
+                deadlineTick += periodTicks;
+                enqueue(this);
+            }
+        }
+
+        /**
+         * Ticker thread only.
+         */
+        void dispatch() {
+            final int runsBefore = runs;
+            final Future<?> future;
+            try {
+                future = delegate.submit((Runnable) this);
+            } catch (RejectedExecutionException e) {
+                setException(new RejectedWorkException("Underlying executor rejected scheduled work", e));
+                return;
+            }
+
+            if (future instanceof NotifyingFuture) {
+                ((NotifyingFuture<?>) future).addCompletionListener(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (runs == runsBefore) {
+                            setException(new RejectedWorkException("Underlying executor did not run scheduled work"));
+                        }
+                    }
+                });
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                cancelled.offer(this);
+            }
+            super.done();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.Callable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A future that is completed explicitly rather than by running a task. Used as the output of the callback combinators.
+ */
+@ThreadSafe
+final class SettableWorkFuture<T> extends NotifyingFutureTask<T> {
+
+    SettableWorkFuture() {
+        super(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                throw new IllegalStateException("SettableWorkFuture is completed explicitly, not run");
+            }
+        });
+    }
+
+    @Override
+    public void set(T t) {
+        super.set(t);
+    }
+
+    @Override
+    public void setException(Throwable t) {
+        super.setException(t);
+    }
+}
@@ -0,0 +1,227 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Spots a fixed-size pool deadlocking on itself: tasks that wait (via {@link WorkExecutor}'s waitFor* or invoke*
+ * methods) on work queued behind them in the same pool, until every worker is waiting and nothing queued can start.
+ *
+ * The pool's threads carry a thread-local marker while running the executor's tasks, so waits on any other thread
+ * cost one {@link ThreadLocal#get()}. A marked thread registers the futures it's about to wait on, and the last worker
+ * to block checks whether every blocked worker is waiting on something still queued. If so the {@link
+ * StarvationListener} is told, and if there's an overflow executor the awaited tasks are run on it so the pool can make
+ * progress again (the pool skips them when it finally gets to them). The overflow's threads aren't marked, so work it
+ * runs can wait without being mistaken for a blocked worker.
+ *
+ * Give one to an {@link ExecutorServiceWorkExecutor} to use it.
+ */
+@ThreadSafe
+public final class StarvationDetector {
+
+    /**
+     * The detector (and so the executor) whose task the current thread is running, if any.
+     */
+    private static final ThreadLocal<StarvationDetector> RUNNING_FOR = new ThreadLocal<StarvationDetector>();
+
+    private final int workers;
+    private final StarvationListener listener;
+    @Nullable
+    private final Executor overflow;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger blockedCount = new AtomicInteger();
+    private final ConcurrentMap<Thread, List<? extends Future<?>>> blocked =
+            new ConcurrentHashMap<Thread, List<? extends Future<?>>>();
+
+    /**
+     * @param workers  how many threads the pool runs tasks on at most. For a ThreadPoolExecutor with an unbounded queue
+     *                 that's its core size, not its maximum size.
+     * @param listener told when the pool is starved
+     */
+    public StarvationDetector(int workers, StarvationListener listener) {
+        this(workers, listener, null);
+    }
+
+    /**
+     * @param workers  how many threads the pool runs tasks on at most. For a ThreadPoolExecutor with an unbounded queue
+     *                 that's its core size, not its maximum size.
+     * @param listener told when the pool is starved
+     * @param overflow if not null, where the queued tasks that starved workers are waiting on get run
+     */
+    public StarvationDetector(int workers, StarvationListener listener, @Nullable Executor overflow) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Need at least one worker");
+        }
+
+        this.workers = workers;
+        this.listener = listener;
+        this.overflow = overflow;
+    }
+
+    /**
+     * @return how many tasks are waiting for a worker
+     */
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * @return how many workers are blocked waiting on futures
+     */
+    public int getBlockedCount() {
+        return blockedCount.get();
+    }
+
+    <T> Task<T> newTask(Callable<T> callable) {
+        queued.incrementAndGet();
+        return new Task<T>(this, callable);
+    }
+
+    <T> Task<T> newTask(Runnable runnable, T result) {
+        queued.incrementAndGet();
+        return new Task<T>(this, runnable, result);
+    }
+
+    /**
+     * Call before the current thread waits on futures, and call {@link #stopWaiting()} afterwards if this returns
+     * true.
+     *
+     * @return false if the current thread isn't running one of this detector's tasks, so there's nothing to track
+     */
+    boolean startWaiting(List<? extends Future<?>> futures) {
+        if (RUNNING_FOR.get() != this) {
+            return false;
+        }
+
+        blocked.put(Thread.currentThread(), futures);
+        if (blockedCount.incrementAndGet() >= workers && queued.get() > 0) {
+            check();
+        }
+        return true;
+    }
+
+    void stopWaiting() {
+        blockedCount.decrementAndGet();
+        blocked.remove(Thread.currentThread());
+    }
+
+    /**
+     * Every worker is blocked and something is queued. It's only starvation if each of them is waiting on queued work
+     * of ours: a worker waiting on anything else may yet be woken.
+     */
+    private void check() {
+        List<Task<?>> starved = new ArrayList<Task<?>>();
+        for (List<? extends Future<?>> futures : blocked.values()) {
+            boolean waitingOnQueued = false;
+            for (Future<?> future : futures) {
+                if (future instanceof Task && ((Task<?>) future).isQueuedIn(this)) {
+                    starved.add((Task<?>) future);
+                    waitingOnQueued = true;
+                }
+            }
+
+            if (!waitingOnQueued) {
+                return;
+            }
+        }
+
+        listener.starvationDetected(blockedCount.get(), queued.get());
+        if (overflow != null) {
+            for (final Task<?> task : starved) {
+                overflow.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        task.runOffPool();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Task that marks the pool thread running it and keeps the detector's queued count.
+     */
+    static final class Task<T> extends NotifyingFutureTask<T> {
+        private static final int QUEUED = 0;
+        private static final int STARTED = 1;
+        private static final int ABANDONED = 2;
+
+        private final StarvationDetector detector;
+        volatile int state = QUEUED;
+
+        Task(StarvationDetector detector, Callable<T> callable) {
+            super(callable);
+            this.detector = detector;
+        }
+
+        Task(StarvationDetector detector, Runnable runnable, T result) {
+            super(runnable, result);
+            this.detector = detector;
+        }
+
+        boolean isQueuedIn(StarvationDetector detector) {
+            return this.detector == detector && state == QUEUED;
+        }
+
+        /**
+         * May run twice, once on the overflow executor and once on the pool; only the first run does anything.
+         */
+        @Override
+        public void run() {
+            run(detector);
+        }
+
+        /**
+         * Run on the overflow executor. Its threads aren't the pool's workers, so waits made from them don't count
+         * towards starving the pool.
+         */
+        void runOffPool() {
+            run(null);
+        }
+
+        private void run(@Nullable StarvationDetector runningFor) {
+            if (STATE.compareAndSet(this, QUEUED, STARTED)) {
+                detector.queued.decrementAndGet();
+            }
+
+            StarvationDetector previous = RUNNING_FOR.get();
+            if (runningFor == null) {
+                RUNNING_FOR.remove();
+            } else {
+                RUNNING_FOR.set(runningFor);
+            }
+            try {
+                super.run();
+            } finally {
+                if (previous == null) {
+                    RUNNING_FOR.remove();
+                } else {
+                    RUNNING_FOR.set(previous);
+                }
+            }
+        }
+
+        @Override
+        protected void done() {
+            // cancelled or rejected before it started
+            if (STATE.compareAndSet(this, QUEUED, ABANDONED)) {
+                detector.queued.decrementAndGet();
+            }
+            super.done();
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<Task> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Task.class, "state");
+}
@@ -0,0 +1,18 @@
+package io.aexp.concurrency.middlemanager;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Told by a {@link StarvationDetector} when every worker of an executor is blocked waiting on work that is still
+ * queued behind them. Called inline on the last worker to block, so implementations must be cheap and non-blocking
+ * (e.g. log, or bump a counter).
+ */
+@ThreadSafe
+public interface StarvationListener {
+
+    /**
+     * @param blockedWorkers how many of the executor's workers are blocked in waitFor* or invoke* calls
+     * @param queuedTasks    how many of the executor's tasks are waiting for a worker
+     */
+    void starvationDetected(int blockedWorkers, int queuedTasks);
+}
@@ -0,0 +1,142 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.lang.System.nanoTime;
+
+/**
+ * Submits work to a WorkExecutor and hands the futures back in the order they complete, like {@link
+ * java.util.concurrent.CompletionService}.
+ *
+ * Futures are queued by their completion listeners as they finish, so consumers wake once per completed task rather
+ * than repeatedly calling {@link WorkExecutor#waitForAnyToComplete(List, long, TimeUnit)} and scanning the batch.
+ *
+ * Every submitted future is handed out exactly once, whether it succeeded, failed or was cancelled.
+ */
+@ThreadSafe
+public final class WorkCompletionQueue<T> {
+
+    private final WorkExecutor workExecutor;
+    private final CompletionOrder<T> order = new CompletionOrder<T>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public WorkCompletionQueue(WorkExecutor workExecutor) {
+        this.workExecutor = workExecutor;
+    }
+
+    @Nonnull
+    public Future<T> submit(Callable<T> callable) {
+        Future<T> future = workExecutor.submit(callable);
+        pending.incrementAndGet();
+        order.add(future);
+        return future;
+    }
+
+    @Nonnull
+    public List<Future<T>> submitAll(Collection<? extends Callable<T>> callables) {
+        List<Future<T>> futures = workExecutor.submitAll(callables);
+        pending.addAndGet(futures.size());
+        for (Future<T> future : futures) {
+            order.add(future);
+        }
+
+        return futures;
+    }
+
+    /**
+     * @return the next completed future, or null if none has completed yet
+     */
+    @Nullable
+    public Future<T> poll() {
+        try {
+            return poll(0, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            // a zero wait doesn't block, but be tidy about it
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * @return the next completed future, or null if none completes within the timeout
+     */
+    @Nullable
+    public Future<T> poll(long timeout, TimeUnit unit) throws InterruptedException {
+        Future<T> future = order.poll(nanoTime() + unit.toNanos(timeout));
+        if (future != null) {
+            pending.decrementAndGet();
+        }
+
+        return future;
+    }
+
+    /**
+     * @return how many submitted futures have not been handed out yet, whether or not they have completed
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Iterate over the futures that are pending now, in the order they complete.
+     *
+     * {@link Iterator#hasNext()} waits for the next one to complete. It returns false once nothing is pending, or if
+     * the timeout (for the whole drain) expires or the thread is interrupted first; in the last case the thread's
+     * interrupt status is set again.
+     *
+     * @param timeout how long to drain for in total
+     * @param unit    unit of timeout
+     * @return an iterator meant for one consumer; other consumers may still poll concurrently
+     */
+    @Nonnull
+    public Iterator<Future<T>> drain(long timeout, TimeUnit unit) {
+        final long deadline = nanoTime() + unit.toNanos(timeout);
+
+        return new Iterator<Future<T>>() {
+            private Future<T> next;
+
+            @Override
+            public boolean hasNext() {
+                if (next != null) {
+                    return true;
+                }
+                if (pending.get() == 0) {
+                    return false;
+                }
+
+                try {
+                    next = poll(deadline - nanoTime(), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return next != null;
+            }
+
+            @Override
+            public Future<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                Future<T> future = next;
+                next = null;
+                return future;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -1,9 +1,12 @@
 package io.aexp.concurrency.middlemanager;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -38,6 +41,72 @@ public interface WorkExecutor {
     @Nonnull
     <T> Future<T> submit(Callable<T> callable);
 
+    /**
+     * Submit a batch of callables for execution. This is equivalent to calling {@link #submit(Callable)} for each one,
+     * but implementations may amortize the cost of handing the batch off. If the batch can't be submitted in full, any
+     * part of it that was already submitted is cancelled before the exception propagates.
+     *
+     * @param callables callables to execute
+     * @param <T>       type the callables will emit
+     * @return futures representing the computations, in the iteration order of the provided collection
+     */
+    @Nonnull
+    <T> List<Future<T>> submitAll(Collection<? extends Callable<T>> callables);
+
+    /**
+     * Run a batch of callables and wait for all of their results. As soon as one fails, the rest are cancelled (with
+     * interruption) rather than left to run for nothing; the same goes if the timeout passes or the caller is
+     * interrupted.
+     *
+     * @param callables callables to execute
+     * @param timeout   timeout amount
+     * @param unit      timeout unit
+     * @param <T>       type the callables will emit
+     * @return the callables' results, in the iteration order of the provided collection
+     * @throws ExecutionException   with the failure of the first callable to fail
+     * @throws TimeoutException     if not every callable completed within the timeout
+     * @throws InterruptedException if interrupted while waiting
+     * @see java.util.concurrent.ExecutorService#invokeAll(Collection, long, TimeUnit)
+     */
+    @Nonnull
+    <T> List<T> invokeAll(Collection<? extends Callable<T>> callables, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException;
+
+    /**
+     * Run a batch of callables and return the result of the first to succeed, cancelling (with interruption) the
+     * rest.
+     *
+     * @param callables callables to execute; at least one
+     * @param timeout   timeout amount
+     * @param unit      timeout unit
+     * @param <T>       type the callables will emit
+     * @return the first successful result
+     * @throws ExecutionException   with the last failure, if every callable failed
+     * @throws TimeoutException     if none succeeded within the timeout
+     * @throws InterruptedException if interrupted while waiting
+     * @see java.util.concurrent.ExecutorService#invokeAny(Collection, long, TimeUnit)
+     */
+    <T> T invokeAny(Collection<? extends Callable<T>> callables, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException;
+
+    /**
+     * Run a batch of callables and return the results of the first {@code count} to succeed, cancelling (with
+     * interruption) the rest; e.g. to read from a quorum of replicas.
+     *
+     * @param count     how many successful results to wait for
+     * @param callables callables to execute; at least count of them
+     * @param timeout   timeout amount
+     * @param unit      timeout unit
+     * @param <T>       type the callables will emit
+     * @return the first count successful results, in the order they completed
+     * @throws ExecutionException   with the last failure, once so many callables have failed that count can't succeed
+     * @throws TimeoutException     if fewer than count succeeded within the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Nonnull
+    <T> List<T> invokeFirst(int count, Collection<? extends Callable<T>> callables, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException;
+
     /**
      * Wait for the future to complete by any means (exceptional or not). Analog to WorkManager#join.
      *
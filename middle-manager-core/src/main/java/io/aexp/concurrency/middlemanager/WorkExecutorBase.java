@@ -1,11 +1,17 @@
 package io.aexp.concurrency.middlemanager;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 import static java.lang.Math.min;
@@ -18,8 +24,152 @@ public abstract class WorkExecutorBase implements WorkExecutor {
 
     private static final long MAX_TIME_SLICE_NS = NANOSECONDS.convert(100, MILLISECONDS);
 
+    @Nonnull
+    @Override
+    public <T> List<Future<T>> submitAll(Collection<? extends Callable<T>> callables) {
+        List<Future<T>> futures = new ArrayList<Future<T>>(callables.size());
+        try {
+            for (Callable<T> callable : callables) {
+                futures.add(submit(callable));
+            }
+        } catch (RuntimeException e) {
+            cancelAll(futures);
+            throw e;
+        }
+
+        return futures;
+    }
+
+    /**
+     * Cancel (without interrupting) every future in a batch that couldn't be submitted in full.
+     */
+    protected static void cancelAll(List<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(false);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public <T> List<T> invokeAll(Collection<? extends Callable<T>> callables, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = nanoTime() + unit.toNanos(timeout);
+        List<Future<T>> futures = submitAll(callables);
+        StarvationDetector detector = startWaiting(futures);
+        try {
+            CompletionOrder<T> order = new CompletionOrder<T>(futures);
+            for (int i = 0; i < futures.size(); i++) {
+                // fail fast
+                ListenableWorkFutures.getDone(order.next(deadline));
+            }
+
+            List<T> results = new ArrayList<T>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(ListenableWorkFutures.getDone(future));
+            }
+            return results;
+        } finally {
+            stopWaiting(detector);
+            interruptAll(futures);
+        }
+    }
+
+    @Override
+    public <T> T invokeAny(Collection<? extends Callable<T>> callables, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return invokeFirst(1, callables, timeout, unit).get(0);
+    }
+
+    @Nonnull
+    @Override
+    public <T> List<T> invokeFirst(int count, Collection<? extends Callable<T>> callables, long timeout,
+            TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (count < 1 || count > callables.size()) {
+            throw new IllegalArgumentException("Need between 1 and " + callables.size() + " results, not " + count);
+        }
+
+        long deadline = nanoTime() + unit.toNanos(timeout);
+        List<Future<T>> futures = submitAll(callables);
+        StarvationDetector detector = startWaiting(futures);
+        try {
+            CompletionOrder<T> order = new CompletionOrder<T>(futures);
+            List<T> results = new ArrayList<T>(count);
+            ExecutionException lastFailure = null;
+            int pending = futures.size();
+            while (results.size() < count) {
+                if (pending < count - results.size()) {
+                    throw lastFailure;
+                }
+
+                Future<T> future = order.next(deadline);
+                pending--;
+                try {
+                    results.add(ListenableWorkFutures.getDone(future));
+                } catch (ExecutionException e) {
+                    lastFailure = e;
+                } catch (CancellationException e) {
+                    lastFailure = new ExecutionException("Work was cancelled", e);
+                }
+            }
+            return results;
+        } finally {
+            stopWaiting(detector);
+            interruptAll(futures);
+        }
+    }
+
+    /**
+     * Executors that can starve themselves return their detector, so that waits made from their own tasks are
+     * tracked.
+     */
+    @Nullable
+    protected StarvationDetector getStarvationDetector() {
+        return null;
+    }
+
+    /**
+     * Tell the starvation detector, if any, that the current thread is about to wait on these futures. Subclasses that
+     * override the waits call this and {@link #stopWaiting(StarvationDetector)} around them, as the base waits do.
+     *
+     * @return the detector to pass to {@link #stopWaiting(StarvationDetector)}, or null if this wait isn't tracked
+     */
+    @Nullable
+    protected final StarvationDetector startWaiting(List<? extends Future<?>> futures) {
+        StarvationDetector detector = getStarvationDetector();
+        return detector != null && detector.startWaiting(futures) ? detector : null;
+    }
+
+    protected static void stopWaiting(@Nullable StarvationDetector detector) {
+        if (detector != null) {
+            detector.stopWaiting();
+        }
+    }
+
+    /**
+     * Cancel, with interruption, whatever is left of a fan-out once its caller is done with it.
+     */
+    private static void interruptAll(List<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            if (!future.isDone()) {
+                future.cancel(true);
+            }
+        }
+    }
+
     @Override
     public boolean waitForCompletion(Future<?> f, long timeout, TimeUnit unit) {
+        // don't allocate the list unless there's someone to hand it to
+        StarvationDetector detector = getStarvationDetector() == null
+                ? null
+                : startWaiting(Collections.<Future<?>>singletonList(f));
+        try {
+            return awaitCompletion(f, timeout, unit);
+        } finally {
+            stopWaiting(detector);
+        }
+    }
+
+    private static boolean awaitCompletion(Future<?> f, long timeout, TimeUnit unit) {
         try {
             f.get(timeout, unit);
             return true;
@@ -38,6 +188,51 @@ public abstract class WorkExecutorBase implements WorkExecutor {
 
     @Override
     public boolean waitForAnyToComplete(List<Future<?>> futures, long timeout, TimeUnit unit) {
+        StarvationDetector detector = startWaiting(futures);
+        try {
+            return awaitAny(futures, timeout, unit);
+        } finally {
+            stopWaiting(detector);
+        }
+    }
+
+    private static boolean awaitAny(List<Future<?>> futures, long timeout, TimeUnit unit) {
+        if (!allNotifying(futures)) {
+            return pollForAnyToComplete(futures, timeout, unit);
+        }
+
+        for (Future<?> future : futures) {
+            if (future.isDone()) {
+                return true;
+            }
+        }
+
+        if (futures.isEmpty()) {
+            return false;
+        }
+
+        // first completion anywhere in the list wakes us up
+        CompletionBarrier barrier = new CompletionBarrier(1);
+        for (Future<?> future : futures) {
+            ((NotifyingFuture<?>) future).addCompletionListener(barrier);
+        }
+
+        try {
+            return barrier.await(unit.toNanos(timeout));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            for (Future<?> future : futures) {
+                ((NotifyingFuture<?>) future).removeCompletionListener(barrier);
+            }
+        }
+    }
+
+    /**
+     * Fallback for futures that weren't issued by a WorkExecutor and so can't tell us when they're done.
+     */
+    private static boolean pollForAnyToComplete(List<Future<?>> futures, long timeout, TimeUnit unit) {
         long start = nanoTime();
         long timeoutNanos = unit.toNanos(timeout);
 
@@ -78,31 +273,107 @@ public abstract class WorkExecutorBase implements WorkExecutor {
 
     @Override
     public boolean waitForAllToComplete(List<Future<?>> futures, long timeout, TimeUnit unit) {
+        StarvationDetector detector = startWaiting(futures);
+        try {
+            return awaitAll(futures, timeout, unit);
+        } finally {
+            stopWaiting(detector);
+        }
+    }
+
+    private static boolean awaitAll(List<Future<?>> futures, long timeout, TimeUnit unit) {
         long start = nanoTime();
         long timeoutNanos = unit.toNanos(timeout);
 
+        // Futures that can't notify us are waited on one at a time, as before. Everything else shares one barrier.
+        int notifying = 0;
         for (Future<?> future : futures) {
-            long delta = timeoutNanos - (nanoTime() - start);
-            if (delta <= 0) {
+            if (future.isCancelled()) {
                 return false;
             }
 
-            if (future.isDone() || future.isCancelled()) {
+            if (future instanceof NotifyingFuture) {
+                notifying++;
                 continue;
             }
 
-            try {
-                future.get(delta, NANOSECONDS);
-                // keep going
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+            if (!awaitForeign(future, timeoutNanos - (nanoTime() - start))) {
                 return false;
-            } catch (ExecutionException e) {
-                // keep going
-            } catch (TimeoutException e) {
+            }
+        }
+
+        if (notifying > 0 && !awaitNotifying(futures, notifying, timeoutNanos - (nanoTime() - start))) {
+            return false;
+        }
+
+        for (Future<?> future : futures) {
+            if (future.isCancelled()) {
+                // I think it's defensible to say canceled => did not complete.
                 return false;
-            } catch (CancellationException e) {
-                // We don't use Future#cancel anyway, but I think it's defensible to say canceled => did not complete.
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Park once until every notifying future in the list has completed. Completed futures run the listener as soon as
+     * it's registered, so only the last completion to arrive wakes us.
+     */
+    private static boolean awaitNotifying(List<Future<?>> futures, int notifying, long timeoutNanos) {
+        CompletionBarrier barrier = new CompletionBarrier(notifying);
+        for (Future<?> future : futures) {
+            if (future instanceof NotifyingFuture) {
+                ((NotifyingFuture<?>) future).addCompletionListener(barrier);
+            }
+        }
+
+        boolean completed = false;
+        try {
+            completed = barrier.await(timeoutNanos);
+            return completed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            if (!completed) {
+                for (Future<?> future : futures) {
+                    if (future instanceof NotifyingFuture) {
+                        ((NotifyingFuture<?>) future).removeCompletionListener(barrier);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean awaitForeign(Future<?> future, long timeoutNanos) {
+        if (future.isDone()) {
+            return !future.isCancelled();
+        }
+
+        if (timeoutNanos <= 0) {
+            return false;
+        }
+
+        try {
+            future.get(timeoutNanos, NANOSECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (CancellationException e) {
+            // We don't use Future#cancel anyway, but I think it's defensible to say canceled => did not complete.
+            return false;
+        }
+    }
+
+    private static boolean allNotifying(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            if (!(future instanceof NotifyingFuture)) {
                 return false;
             }
         }
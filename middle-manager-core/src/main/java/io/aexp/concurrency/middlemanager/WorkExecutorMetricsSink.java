@@ -0,0 +1,33 @@
+package io.aexp.concurrency.middlemanager;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Receives the measurements taken by an {@link InstrumentedWorkExecutor}, e.g. to forward them to a metrics library.
+ * Methods are called inline on submitting, executing and waiting threads, so implementations must be cheap and
+ * non-blocking.
+ */
+@ThreadSafe
+public interface WorkExecutorMetricsSink {
+
+    /**
+     * @param nanos time between a task being submitted and starting to run
+     */
+    void recordQueueWait(long nanos);
+
+    /**
+     * @param nanos  time a task spent running
+     * @param failed true if the task threw
+     */
+    void recordExecution(long nanos, boolean failed);
+
+    /**
+     * A submission was rejected by the underlying executor.
+     */
+    void recordRejection();
+
+    /**
+     * @param nanos time a caller spent blocked in one of the waitFor* methods
+     */
+    void recordWaitBlocked(long nanos);
+}
@@ -0,0 +1,18 @@
+package io.aexp.concurrency.middlemanager;
+
+/**
+ * A function applied to the result of a {@link ListenableWorkFuture}. Java 6 has no {@code java.util.function}, so
+ * this stands in for it.
+ *
+ * @param <I> input type
+ * @param <O> output type
+ */
+public interface WorkFunction<I, O> {
+
+    /**
+     * @param input result of the upstream future
+     * @return the transformed result
+     * @throws Exception if the transformation fails; the downstream future fails with it
+     */
+    O apply(I input) throws Exception;
+}
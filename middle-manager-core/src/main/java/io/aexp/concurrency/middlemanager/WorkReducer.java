@@ -0,0 +1,16 @@
+package io.aexp.concurrency.middlemanager;
+
+/**
+ * Combines two partial results of a {@link ParallelLoops#mapReduce(WorkExecutor, java.util.List, WorkFunction,
+ * WorkReducer, Object) parallel map-reduce}. Partial results are combined in no particular order, so this must be
+ * associative and commutative.
+ *
+ * @param <T> result type
+ */
+public interface WorkReducer<T> {
+
+    /**
+     * @throws Exception if combining fails; the map-reduce's future fails with it
+     */
+    T reduce(T left, T right) throws Exception;
+}
@@ -0,0 +1,226 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class AdaptiveLimitWorkExecutorTest extends WorkExecutorTestBase {
+
+    /**
+     * The simulated service runs this many requests at once...
+     */
+    private static final int CAPACITY = 50;
+    /**
+     * ... each taking this long; more requests than that queue up inside it.
+     */
+    private static final long SERVICE_NANOS = MILLISECONDS.toNanos(10);
+
+    @Override
+    protected WorkExecutor getWorkExecutor() {
+        return new AdaptiveLimitWorkExecutor(new ExecutorServiceWorkExecutor(Executors.newCachedThreadPool()),
+                new GradientLimit(1000, 100, 1000, 1.2, 1000), 100000, OverloadPolicy.FAIL_FAST);
+    }
+
+    @Test
+    public void testGradientConvergesFromBelow() {
+        assertConverges(new GradientLimit(10, 1, 1000, 1.2, 1000));
+    }
+
+    @Test
+    public void testGradientConvergesFromAbove() {
+        // starting overloaded, the first probe is what tells it how fast the service can be
+        assertConverges(new GradientLimit(1000, 1, 1000, 1.2, 1000));
+    }
+
+    @Test
+    public void testGradientDropDuringProbeKeepsProbing() {
+        GradientLimit limit = new GradientLimit(100, 1, 1000, 1.2, 1000);
+        assertEquals(1, limit.getLimit());
+
+        limit.onDropped();
+        assertEquals(1, limit.getLimit());
+        // still ignored as having started before the probe
+        limit.onSample(5 * SERVICE_NANOS, 50);
+        for (int i = 0; i < 11; i++) {
+            limit.onSample(SERVICE_NANOS, 1);
+        }
+
+        // the drop took effect once the probe was done...
+        assertEquals(50, limit.getLimit());
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(SERVICE_NANOS, 50);
+        }
+        // ... and the baseline is the unloaded run time, so running at it leaves room to grow
+        assertTrue(limit.getLimit() > 50);
+    }
+
+    @Test
+    public void testAimdConvergesFromBelow() {
+        assertConverges(new AimdLimit(10, 1, 1000, 0.9, 6 * SERVICE_NANOS / 5, NANOSECONDS));
+    }
+
+    @Test
+    public void testAimdConvergesFromAbove() {
+        assertConverges(new AimdLimit(1000, 1, 1000, 0.9, 6 * SERVICE_NANOS / 5, NANOSECONDS));
+    }
+
+    @Test
+    public void testSamplesRunTimeNotQueueTime() throws Exception {
+        RecordingLimit limit = new RecordingLimit(1);
+        ExecutorService executorService = Executors.newCachedThreadPool();
+        AdaptiveLimitWorkExecutor executor = new AdaptiveLimitWorkExecutor(
+                new ExecutorServiceWorkExecutor(executorService), limit, 10, OverloadPolicy.FAIL_FAST);
+
+        Future<Void> first = executor.submit(new Sleep(50));
+        Future<Void> second = executor.submit(new Sleep(0));
+        assertEquals(1, executor.getInFlightCount());
+        assertEquals(1, executor.getQueuedCount());
+
+        first.get(1, SECONDS);
+        second.get(1, SECONDS);
+        limit.samples.await(1, SECONDS);
+
+        assertTrue(limit.maxRunNanos >= MILLISECONDS.toNanos(50));
+        // the second task queued behind the first for 50ms, but only ran for a moment
+        assertTrue(limit.minRunNanos < MILLISECONDS.toNanos(50));
+        executorService.shutdown();
+    }
+
+    @Test
+    public void testFollowsLimitChanges() throws Exception {
+        RecordingLimit limit = new RecordingLimit(1);
+        ExecutorService executorService = Executors.newCachedThreadPool();
+        AdaptiveLimitWorkExecutor executor = new AdaptiveLimitWorkExecutor(
+                new ExecutorServiceWorkExecutor(executorService), limit, 0, OverloadPolicy.FAIL_FAST);
+        final CountDownLatch gate = new CountDownLatch(1);
+        Callable<Void> gated = new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                gate.await();
+                return null;
+            }
+        };
+
+        executor.submit(gated);
+        try {
+            executor.submit(gated);
+            fail();
+        } catch (RejectedWorkException e) {
+            // expected
+        }
+
+        limit.limit = 2;
+        executor.submit(gated);
+        assertEquals(2, executor.getInFlightCount());
+        gate.countDown();
+        executorService.shutdown();
+    }
+
+    @Test
+    public void testReportsDelegateRejection() {
+        RecordingLimit limit = new RecordingLimit(1);
+        ExecutorService shutDown = Executors.newSingleThreadExecutor();
+        shutDown.shutdown();
+        AdaptiveLimitWorkExecutor executor = new AdaptiveLimitWorkExecutor(new ExecutorServiceWorkExecutor(shutDown),
+                limit, 0, OverloadPolicy.FAIL_FAST);
+
+        try {
+            executor.submit(new Sleep(0));
+            fail();
+        } catch (RejectedWorkException e) {
+            assertEquals(1, limit.drops);
+            assertEquals(0, executor.getInFlightCount());
+        }
+    }
+
+    /**
+     * Drive the limit with a synthetic service: up to {@link #CAPACITY} requests at once each take {@link
+     * #SERVICE_NANOS}, and past that run time grows in proportion to load while throughput stays flat. Each round, as
+     * many requests as the limit allows run (there's always more demand than that), and all of them report back.
+     *
+     * Once settled, the limit should sit near capacity: enough to keep the service busy, without queueing much inside
+     * it.
+     */
+    private static void assertConverges(AdaptiveLimit limit) {
+        double throughput = 0;
+        double runNanos = 0;
+        double settledLimit = 0;
+        int measuredRounds = 0;
+        for (int round = 0; round < 500; round++) {
+            int inFlight = limit.getLimit();
+            long run = SERVICE_NANOS * Math.max(CAPACITY, inFlight) / CAPACITY;
+            for (int i = 0; i < inFlight; i++) {
+                limit.onSample(run, inFlight);
+            }
+
+            if (round >= 250) {
+                // requests per service time
+                throughput += (double) inFlight * SERVICE_NANOS / run;
+                runNanos += run;
+                settledLimit += inFlight;
+                measuredRounds++;
+            }
+        }
+
+        throughput /= measuredRounds;
+        runNanos /= measuredRounds;
+        settledLimit /= measuredRounds;
+        assertTrue(limit + " gave throughput " + throughput, throughput >= 0.9 * CAPACITY);
+        assertTrue(limit + " gave run time " + runNanos, runNanos <= 1.25 * SERVICE_NANOS);
+        assertTrue(limit + " settled at " + settledLimit,
+                settledLimit >= 0.9 * CAPACITY && settledLimit <= 1.25 * CAPACITY);
+    }
+
+    private static final class RecordingLimit implements AdaptiveLimit {
+        final CountDownLatch samples = new CountDownLatch(2);
+        volatile int limit;
+        volatile long minRunNanos = Long.MAX_VALUE;
+        volatile long maxRunNanos;
+        volatile int drops;
+
+        RecordingLimit(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public int getLimit() {
+            return limit;
+        }
+
+        @Override
+        public synchronized void onSample(long runNanos, int inFlight) {
+            minRunNanos = Math.min(minRunNanos, runNanos);
+            maxRunNanos = Math.max(maxRunNanos, runNanos);
+            samples.countDown();
+        }
+
+        @Override
+        public synchronized void onDropped() {
+            drops++;
+        }
+    }
+
+    private static final class Sleep implements Callable<Void> {
+        private final long millis;
+
+        Sleep(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            Thread.sleep(millis);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class BoundedWorkExecutorTest extends WorkExecutorTestBase {
+
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final CountDownLatch gate = new CountDownLatch(1);
+
+    @After
+    public void tearDown() {
+        gate.countDown();
+        executorService.shutdown();
+    }
+
+    @Override
+    protected WorkExecutor getWorkExecutor() {
+        return new BoundedWorkExecutor(new ExecutorServiceWorkExecutor(Executors.newCachedThreadPool()), 1000, 100000,
+                OverloadPolicy.FAIL_FAST);
+    }
+
+    @Test
+    public void testFailFastRejectsWhenSaturated() throws Exception {
+        BoundedWorkExecutor executor = bounded(OverloadPolicy.FAIL_FAST);
+        Future<Void> running = executor.submit(new Gated());
+        Future<Void> queued = executor.submit(new Gated());
+
+        assertEquals(1, executor.getInFlightCount());
+        assertEquals(1, executor.getQueuedCount());
+        try {
+            executor.submit(new Gated());
+            fail();
+        } catch (RejectedWorkException e) {
+            // expected
+        }
+
+        gate.countDown();
+        running.get(1, SECONDS);
+        queued.get(1, SECONDS);
+        awaitIdle(executor);
+        assertEquals(0, executor.getQueuedCount());
+    }
+
+    @Test
+    public void testCallerRunsWhenSaturated() throws Exception {
+        BoundedWorkExecutor executor = bounded(OverloadPolicy.CALLER_RUNS);
+        executor.submit(new Gated());
+        executor.submit(new Gated());
+
+        Future<Thread> inline = executor.submit(new Callable<Thread>() {
+            @Override
+            public Thread call() {
+                return Thread.currentThread();
+            }
+        });
+
+        assertTrue(inline.isDone());
+        assertSame(Thread.currentThread(), inline.get());
+        assertEquals(1, executor.getInFlightCount());
+    }
+
+    @Test
+    public void testDropOldestFailsQueuedWork() throws Exception {
+        BoundedWorkExecutor executor = bounded(OverloadPolicy.DROP_OLDEST);
+        Future<Void> running = executor.submit(new Gated());
+        Future<Void> oldest = executor.submit(new Gated());
+        Future<Void> newest = executor.submit(new Gated());
+
+        try {
+            oldest.get(1, SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedWorkException);
+        }
+
+        gate.countDown();
+        running.get(1, SECONDS);
+        newest.get(1, SECONDS);
+    }
+
+    @Test
+    public void testBlockTimesOut() throws Exception {
+        BoundedWorkExecutor executor = new BoundedWorkExecutor(new ExecutorServiceWorkExecutor(executorService), 1, 1,
+                OverloadPolicy.BLOCK, 50, MILLISECONDS);
+        executor.submit(new Gated());
+        executor.submit(new Gated());
+
+        long start = System.nanoTime();
+        try {
+            executor.submit(new Gated());
+            fail();
+        } catch (RejectedWorkException e) {
+            assertTrue(System.nanoTime() - start >= MILLISECONDS.toNanos(50));
+        }
+    }
+
+    @Test
+    public void testBlockAdmitsOnceRoomFrees() throws Exception {
+        BoundedWorkExecutor executor = new BoundedWorkExecutor(new ExecutorServiceWorkExecutor(executorService), 1, 0,
+                OverloadPolicy.BLOCK, 10, SECONDS);
+        executor.submit(new Gated());
+
+        Thread opener = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                gate.countDown();
+            }
+        };
+        opener.start();
+
+        executor.submit(new Gated()).get(1, SECONDS);
+        opener.join();
+    }
+
+    @Test
+    public void testCancelledWhileQueuedFreesQueueSlot() throws Exception {
+        BoundedWorkExecutor executor = bounded(OverloadPolicy.FAIL_FAST);
+        Future<Void> running = executor.submit(new Gated());
+        executor.submit(new Gated()).cancel(false);
+
+        gate.countDown();
+        running.get(1, SECONDS);
+        awaitIdle(executor);
+        // the cancelled task was drained without taking an in-flight slot
+        executor.submit(new Gated()).get(1, SECONDS);
+        assertEquals(0, executor.getQueuedCount());
+    }
+
+    @Test
+    public void testCancellingRunningWorkFreesItsSlot() throws Exception {
+        BoundedWorkExecutor executor = new BoundedWorkExecutor(new ExecutorServiceWorkExecutor(executorService), 1, 0,
+                OverloadPolicy.FAIL_FAST);
+        Future<Void> running = executor.submit(new Gated());
+
+        running.cancel(true);
+        awaitIdle(executor);
+
+        // the gate is still closed, so this only gets to run because the interrupt ended the first task
+        executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                return null;
+            }
+        }).get(1, SECONDS);
+    }
+
+    @Test
+    public void testCancellingUnstartedWorkFreesItsSlotStraightAway() throws Exception {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        single.submit(new Gated());
+        BoundedWorkExecutor executor = new BoundedWorkExecutor(new ExecutorServiceWorkExecutor(single), 1, 0,
+                OverloadPolicy.FAIL_FAST);
+
+        // handed to the delegate, but stuck behind the gated task
+        Future<Void> waiting = executor.submit(new Gated());
+        assertEquals(1, executor.getInFlightCount());
+
+        waiting.cancel(false);
+        assertEquals(0, executor.getInFlightCount());
+
+        Future<Void> next = executor.submit(new Gated());
+        gate.countDown();
+        next.get(1, SECONDS);
+        single.shutdown();
+    }
+
+    @Test
+    public void testDelegateRejectionReleasesSlot() throws Exception {
+        ExecutorService shutDown = Executors.newSingleThreadExecutor();
+        shutDown.shutdown();
+        BoundedWorkExecutor executor = new BoundedWorkExecutor(new ExecutorServiceWorkExecutor(shutDown), 1, 1,
+                OverloadPolicy.FAIL_FAST);
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                executor.submit(new Gated());
+                fail();
+            } catch (RejectedExecutionException e) {
+                assertTrue(e instanceof RejectedWorkException);
+            }
+        }
+        assertEquals(0, executor.getInFlightCount());
+    }
+
+    @Test
+    public void testDelegateFailureReleasesSlot() throws Exception {
+        final WorkExecutor working = new ExecutorServiceWorkExecutor(executorService);
+        final AtomicBoolean failing = new AtomicBoolean();
+        BoundedWorkExecutor executor = new BoundedWorkExecutor(new WorkExecutorBase() {
+            @Override
+            public <T extends Runnable> Future<T> submit(T runnable) {
+                if (failing.get()) {
+                    throw new IllegalStateException("kaboom");
+                }
+                return working.submit(runnable);
+            }
+
+            @Override
+            public <T> Future<T> submit(Callable<T> callable) {
+                if (failing.get()) {
+                    throw new IllegalStateException("kaboom");
+                }
+                return working.submit(callable);
+            }
+        }, 1, 1, OverloadPolicy.FAIL_FAST);
+        Future<Void> running = executor.submit(new Gated());
+        Future<Void> queued = executor.submit(new Gated());
+
+        // the queued task is handed over once the running one finishes
+        failing.set(true);
+        gate.countDown();
+        running.get(1, SECONDS);
+        try {
+            queued.get(1, SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        awaitIdle(executor);
+
+        try {
+            executor.submit(new Gated());
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(0, executor.getInFlightCount());
+        }
+    }
+
+    /**
+     * A future completes just before its task gives back its slot.
+     */
+    private static void awaitIdle(BoundedWorkExecutor executor) throws InterruptedException {
+        long deadline = System.nanoTime() + SECONDS.toNanos(1);
+        while (executor.getInFlightCount() > 0) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private BoundedWorkExecutor bounded(OverloadPolicy policy) {
+        return new BoundedWorkExecutor(new ExecutorServiceWorkExecutor(executorService), 1, 1, policy);
+    }
+
+    private final class Gated implements Callable<Void> {
+        @Override
+        public Void call() throws Exception {
+            gate.await();
+            return null;
+        }
+    }
+}
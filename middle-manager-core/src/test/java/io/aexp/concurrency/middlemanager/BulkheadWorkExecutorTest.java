@@ -0,0 +1,199 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import org.junit.After;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class BulkheadWorkExecutorTest extends WorkExecutorTestBase {
+
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final Semaphore permitsA = new Semaphore(0);
+    private final Semaphore permitsB = new Semaphore(0);
+
+    @After
+    public void tearDown() {
+        permitsA.release(1000);
+        permitsB.release(1000);
+        executorService.shutdown();
+    }
+
+    @Override
+    protected WorkExecutor getWorkExecutor() {
+        BulkheadWorkExecutor bulkhead =
+                new BulkheadWorkExecutor(new ExecutorServiceWorkExecutor(Executors.newCachedThreadPool()), 1000);
+        return bulkhead.addPartition("test", 10, 1000, 1, 100000, OverloadPolicy.FAIL_FAST);
+    }
+
+    @Test
+    public void testNoisyPartitionCannotTakeAnotherPartitionsReservation() throws Exception {
+        BulkheadWorkExecutor bulkhead = new BulkheadWorkExecutor(new ExecutorServiceWorkExecutor(executorService), 4);
+        BulkheadWorkExecutor.Partition a = bulkhead.addPartition("a", 2, 4, 1, 100, OverloadPolicy.FAIL_FAST);
+        BulkheadWorkExecutor.Partition b = bulkhead.addPartition("b", 2, 4, 1, 100, OverloadPolicy.FAIL_FAST);
+
+        submit(a, permitsA, 50);
+        assertEquals(2, a.getInFlightCount());
+        assertEquals(48, a.getQueuedCount());
+
+        submit(b, permitsB, 2);
+        assertEquals(2, b.getInFlightCount());
+        assertEquals(0, b.getQueuedCount());
+    }
+
+    @Test
+    public void testBorrowsSpareCapacityNobodyElseWants() throws Exception {
+        BulkheadWorkExecutor bulkhead = new BulkheadWorkExecutor(new ExecutorServiceWorkExecutor(executorService), 6);
+        BulkheadWorkExecutor.Partition a = bulkhead.addPartition("a", 1, 6, 1, 100, OverloadPolicy.FAIL_FAST);
+        bulkhead.addPartition("b", 1, 6, 1, 100, OverloadPolicy.FAIL_FAST);
+
+        submit(a, permitsA, 10);
+
+        assertEquals(5, a.getInFlightCount());
+        assertEquals(4, a.getBorrowedCount());
+        assertEquals(4, bulkhead.getBorrowedCount());
+    }
+
+    @Test
+    public void testQuotaCapsBorrowing() throws Exception {
+        BulkheadWorkExecutor bulkhead = new BulkheadWorkExecutor(new ExecutorServiceWorkExecutor(executorService), 10);
+        BulkheadWorkExecutor.Partition a = bulkhead.addPartition("a", 0, 3, 1, 100, OverloadPolicy.FAIL_FAST);
+
+        submit(a, permitsA, 10);
+
+        assertEquals(3, a.getInFlightCount());
+        assertEquals(7, a.getQueuedCount());
+    }
+
+    @Test
+    public void testReturnedSpareCapacityGoesToPartitionsBelowTheirShare() throws Exception {
+        BulkheadWorkExecutor bulkhead = new BulkheadWorkExecutor(new ExecutorServiceWorkExecutor(executorService), 6);
+        BulkheadWorkExecutor.Partition a = bulkhead.addPartition("a", 0, 6, 2, 100, OverloadPolicy.FAIL_FAST);
+        BulkheadWorkExecutor.Partition b = bulkhead.addPartition("b", 0, 6, 1, 100, OverloadPolicy.FAIL_FAST);
+
+        // a has the whole pool to itself, then b turns up wanting its third of it
+        submit(a, permitsA, 20);
+        assertEquals(6, a.getInFlightCount());
+        submit(b, permitsB, 20);
+        assertEquals(0, b.getInFlightCount());
+
+        // as a's work finishes, its slots go to b until b has its share...
+        permitsA.release(2);
+        awaitInFlight(b, 2);
+        awaitInFlight(a, 4);
+
+        // ...and then back to a, which is entitled to 4
+        assertEquals(14, a.getQueuedCount());
+        permitsA.release(1);
+        awaitQueued(a, 13);
+        assertEquals(4, a.getInFlightCount());
+        assertEquals(2, b.getInFlightCount());
+
+        // once b is at its share and a has no more work, b may borrow the rest
+        permitsA.release(100);
+        awaitInFlight(a, 0);
+        awaitInFlight(b, 6);
+    }
+
+    @Test
+    public void testBlockedSubmitterIsWokenByAnotherPartitionsRelease() throws Exception {
+        BulkheadWorkExecutor bulkhead = new BulkheadWorkExecutor(new ExecutorServiceWorkExecutor(executorService), 2);
+        BulkheadWorkExecutor.Partition a = bulkhead.addPartition("a", 0, 2, 1, 0, OverloadPolicy.FAIL_FAST);
+        BulkheadWorkExecutor.Partition b = bulkhead.addPartition("b", 0, 2, 1, 0, OverloadPolicy.BLOCK, 5, SECONDS);
+
+        submit(a, permitsA, 2);
+
+        permitsB.release(1);
+        Thread releaser = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                permitsA.release(1);
+            }
+        });
+        releaser.start();
+
+        long start = System.nanoTime();
+        b.submit(new Permit(permitsB)).get();
+        assertTrue(System.nanoTime() - start < SECONDS.toNanos(2));
+    }
+
+    @Test
+    public void testValidatesPartitions() {
+        BulkheadWorkExecutor bulkhead = new BulkheadWorkExecutor(new ExecutorServiceWorkExecutor(executorService), 4);
+        BulkheadWorkExecutor.Partition a = bulkhead.addPartition("a", 3, 4, 1, 0, OverloadPolicy.FAIL_FAST);
+        assertSame(a, bulkhead.getPartition("a"));
+        assertEquals(1, bulkhead.getSpareCapacity());
+
+        try {
+            bulkhead.addPartition("b", 2, 4, 1, 0, OverloadPolicy.FAIL_FAST);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // more reserved than there's capacity for
+        }
+        try {
+            bulkhead.addPartition("a", 0, 4, 1, 0, OverloadPolicy.FAIL_FAST);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // name taken
+        }
+        try {
+            bulkhead.addPartition("c", 0, 5, 1, 0, OverloadPolicy.FAIL_FAST);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // quota bigger than the bulkhead
+        }
+    }
+
+    private static void submit(BulkheadWorkExecutor.Partition partition, Semaphore permits, int count) {
+        for (int i = 0; i < count; i++) {
+            partition.submit(new Permit(permits));
+        }
+    }
+
+    private static void awaitInFlight(BulkheadWorkExecutor.Partition partition, int expected)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + SECONDS.toNanos(2);
+        while (partition.getInFlightCount() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, partition.getInFlightCount());
+    }
+
+    private static void awaitQueued(BulkheadWorkExecutor.Partition partition, int expected)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + SECONDS.toNanos(2);
+        while (partition.getQueuedCount() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, partition.getQueuedCount());
+    }
+
+    /**
+     * Runs until it gets a permit.
+     */
+    private static class Permit implements Callable<Void> {
+        private final Semaphore permits;
+
+        Permit(Semaphore permits) {
+            this.permits = permits;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            permits.acquire();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class CoalescingWorkExecutorTest extends WorkExecutorTestBase {
+
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @After
+    public void tearDown() {
+        gate.countDown();
+        executorService.shutdown();
+    }
+
+    @Override
+    protected WorkExecutor getWorkExecutor() {
+        return new CoalescingWorkExecutor<String>(new ExecutorServiceWorkExecutor(Executors.newCachedThreadPool()));
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneRun() throws Exception {
+        final CoalescingWorkExecutor<String> executor =
+                new CoalescingWorkExecutor<String>(new ExecutorServiceWorkExecutor(executorService));
+        final CountDownLatch submitted = new CountDownLatch(50);
+        final List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 50; i++) {
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    Future<Integer> future = executor.submit("key", new Counting());
+                    synchronized (futures) {
+                        futures.add(future);
+                    }
+                    submitted.countDown();
+                }
+            };
+            thread.start();
+            threads.add(thread);
+        }
+
+        assertTrue(submitted.await(1, SECONDS));
+        gate.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (Future<Integer> future : futures) {
+            assertSame(futures.get(0), future);
+            assertEquals(1, (int) future.get(1, SECONDS));
+        }
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testDifferentKeysRunSeparately() throws Exception {
+        CoalescingWorkExecutor<String> executor =
+                new CoalescingWorkExecutor<String>(new ExecutorServiceWorkExecutor(executorService));
+
+        Future<Integer> a = executor.submit("a", new Counting());
+        Future<Integer> b = executor.submit("b", new Counting());
+        assertEquals(2, executor.getKeyCount());
+        gate.countDown();
+
+        assertNotSame(a, b);
+        a.get(1, SECONDS);
+        b.get(1, SECONDS);
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void testRunsAgainOnceCompletedWithoutCache() throws Exception {
+        gate.countDown();
+        CoalescingWorkExecutor<String> executor =
+                new CoalescingWorkExecutor<String>(new ExecutorServiceWorkExecutor(executorService));
+
+        assertEquals(1, (int) executor.submit("key", new Counting()).get(1, SECONDS));
+        assertEquals(2, (int) executor.submit("key", new Counting()).get(1, SECONDS));
+        assertEquals(0, executor.getKeyCount());
+    }
+
+    @Test
+    public void testKeepsResultUntilItExpires() throws Exception {
+        gate.countDown();
+        CoalescingWorkExecutor<String> executor = new CoalescingWorkExecutor<String>(
+                new ExecutorServiceWorkExecutor(executorService), 100, MILLISECONDS, 10);
+
+        assertEquals(1, (int) executor.submit("key", new Counting()).get(1, SECONDS));
+        assertEquals(1, (int) executor.submit("key", new Counting()).get(1, SECONDS));
+
+        Thread.sleep(150);
+        assertEquals(2, (int) executor.submit("key", new Counting()).get(1, SECONDS));
+    }
+
+    @Test
+    public void testInvalidateDropsKeptResult() throws Exception {
+        gate.countDown();
+        CoalescingWorkExecutor<String> executor = new CoalescingWorkExecutor<String>(
+                new ExecutorServiceWorkExecutor(executorService), 1, SECONDS, 10);
+
+        assertEquals(1, (int) executor.submit("key", new Counting()).get(1, SECONDS));
+        executor.invalidate("key");
+        assertEquals(2, (int) executor.submit("key", new Counting()).get(1, SECONDS));
+    }
+
+    @Test
+    public void testDoesNotKeepFailures() throws Exception {
+        CoalescingWorkExecutor<String> executor = new CoalescingWorkExecutor<String>(
+                new ExecutorServiceWorkExecutor(executorService), 1, SECONDS, 10);
+        Callable<Integer> failing = new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                runs.incrementAndGet();
+                throw new IllegalStateException("kaboom");
+            }
+        };
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                executor.submit("key", failing).get(1, SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+        assertEquals(2, runs.get());
+        assertEquals(0, executor.getKeyCount());
+    }
+
+    @Test
+    public void testEvictsOldestResultsBeyondLimit() throws Exception {
+        gate.countDown();
+        CoalescingWorkExecutor<String> executor = new CoalescingWorkExecutor<String>(
+                new ExecutorServiceWorkExecutor(executorService), 1, SECONDS, 2);
+
+        executor.submit("a", new Counting()).get(1, SECONDS);
+        executor.submit("b", new Counting()).get(1, SECONDS);
+        executor.submit("c", new Counting()).get(1, SECONDS);
+        assertEquals(2, executor.getKeyCount());
+
+        // "a" was dropped to make room for "c"; "c" is still kept
+        assertEquals(4, (int) executor.submit("a", new Counting()).get(1, SECONDS));
+        assertEquals(3, (int) executor.submit("c", new Counting()).get(1, SECONDS));
+    }
+
+    @Test
+    public void testRejectionFailsJoinedCallersAndForgetsKey() throws Exception {
+        ExecutorService shutDown = Executors.newSingleThreadExecutor();
+        shutDown.shutdown();
+        CoalescingWorkExecutor<String> executor =
+                new CoalescingWorkExecutor<String>(new ExecutorServiceWorkExecutor(shutDown));
+
+        try {
+            executor.submit("key", new Counting());
+            fail();
+        } catch (RejectedWorkException e) {
+            assertEquals(0, executor.getKeyCount());
+        }
+    }
+
+    @Test
+    public void testDelegateFailureFailsJoinedCallersAndForgetsKey() throws Exception {
+        CoalescingWorkExecutor<String> executor = new CoalescingWorkExecutor<String>(new WorkExecutorBase() {
+            @Override
+            public <T extends Runnable> Future<T> submit(T runnable) {
+                throw new IllegalStateException("kaboom");
+            }
+
+            @Override
+            public <T> Future<T> submit(Callable<T> callable) {
+                throw new IllegalStateException("kaboom");
+            }
+        });
+
+        try {
+            executor.submit("key", new Counting());
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(0, executor.getKeyCount());
+        }
+    }
+
+    private final class Counting implements Callable<Integer> {
+        @Override
+        public Integer call() throws Exception {
+            int run = runs.incrementAndGet();
+            gate.await();
+            return run;
+        }
+    }
+}
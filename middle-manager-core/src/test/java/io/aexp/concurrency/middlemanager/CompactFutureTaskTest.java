@@ -0,0 +1,175 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class CompactFutureTaskTest {
+
+    @Test
+    public void testRunnableCompletesWithGivenResult() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        };
+        CompactFutureTask<Runnable> task = new CompactFutureTask<Runnable>(runnable, runnable);
+
+        task.run();
+        task.run();
+
+        assertSame(runnable, task.get());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testCallableException() throws Exception {
+        CompactFutureTask<Void> task = new CompactFutureTask<Void>(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                throw new Exception("kaboom");
+            }
+        });
+
+        task.run();
+
+        try {
+            task.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals("kaboom", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testGetBlocksUntilRunAndTimesOut() throws Exception {
+        final CompactFutureTask<String> task = new CompactFutureTask<String>(new Callable<String>() {
+            @Override
+            public String call() {
+                return "done";
+            }
+        });
+
+        try {
+            task.get(10, MILLISECONDS);
+            fail();
+        } catch (TimeoutException e) {
+            // expected
+        }
+
+        new Thread(task).start();
+        assertEquals("done", task.get(1, SECONDS));
+    }
+
+    @Test
+    public void testCancelledBeforeRunNeverRuns() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        CompactFutureTask<Integer> task = new CompactFutureTask<Integer>(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return runs.incrementAndGet();
+            }
+        });
+
+        assertTrue(task.cancel(false));
+        task.run();
+
+        assertTrue(task.isCancelled());
+        assertTrue(task.isDone());
+        assertEquals(0, runs.get());
+        try {
+            task.get();
+            fail();
+        } catch (CancellationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCancelInterruptsRunner() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        CompactFutureTask<Void> task = new CompactFutureTask<Void>(new Callable<Void>() {
+            @Override
+            public Void call() {
+                started.countDown();
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return null;
+            }
+        });
+        new Thread(task).start();
+
+        started.await();
+        assertTrue(task.cancel(true));
+
+        assertTrue(interrupted.await(1, SECONDS));
+        assertFalse(task.cancel(true));
+    }
+
+    @Test
+    public void testListenersRunOnCompletion() {
+        CompactFutureTask<Void> task = new CompactFutureTask<Void>(new Callable<Void>() {
+            @Override
+            public Void call() {
+                return null;
+            }
+        });
+        final AtomicInteger notified = new AtomicInteger();
+        Runnable listener = new Runnable() {
+            @Override
+            public void run() {
+                notified.incrementAndGet();
+            }
+        };
+        task.addCompletionListener(listener);
+
+        task.run();
+        task.addCompletionListener(listener);
+
+        assertEquals(2, notified.get());
+    }
+
+    @Test
+    public void testRejectingListenerExecutorDoesNotFailTheRunner() throws Exception {
+        CompactFutureTask<String> task = new CompactFutureTask<String>(new Callable<String>() {
+            @Override
+            public String call() {
+                return "done";
+            }
+        });
+        task.addListener(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        });
+
+        task.run();
+
+        assertEquals("done", task.get());
+    }
+}
@@ -0,0 +1,83 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public final class CompletionListenersTest {
+
+    private static final AtomicReferenceFieldUpdater<Holder, CompletionListeners.Node> LISTENERS =
+            AtomicReferenceFieldUpdater.newUpdater(Holder.class, CompletionListeners.Node.class, "listeners");
+
+    @Test
+    public void testRemovedListenersDoNotAccumulate() {
+        Holder holder = new Holder();
+        Runnable kept = new Counter();
+        CompletionListeners.add(LISTENERS, holder, kept);
+
+        for (int i = 0; i < 10000; i++) {
+            Runnable timedOutWaiter = new Counter();
+            CompletionListeners.add(LISTENERS, holder, timedOutWaiter);
+            CompletionListeners.remove(LISTENERS, holder, timedOutWaiter);
+        }
+
+        assertSame(kept, holder.listeners.listener);
+        assertEquals(null, holder.listeners.next);
+    }
+
+    @Test
+    public void testRemovesFromMiddleOfStack() {
+        Holder holder = new Holder();
+        Counter first = new Counter();
+        Counter middle = new Counter();
+        Counter last = new Counter();
+        CompletionListeners.add(LISTENERS, holder, first);
+        CompletionListeners.add(LISTENERS, holder, middle);
+        CompletionListeners.add(LISTENERS, holder, last);
+
+        CompletionListeners.remove(LISTENERS, holder, middle);
+        assertSame(last, holder.listeners.listener);
+        assertSame(first, holder.listeners.next.listener);
+
+        CompletionListeners.complete(LISTENERS, holder);
+        assertEquals(1, first.count.get());
+        assertEquals(0, middle.count.get());
+        assertEquals(1, last.count.get());
+    }
+
+    @Test
+    public void testFailingListenerDoesNotEscapeCompletion() {
+        Holder holder = new Holder();
+        Counter before = new Counter();
+        Counter after = new Counter();
+        CompletionListeners.add(LISTENERS, holder, before);
+        CompletionListeners.add(LISTENERS, holder, new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("kaboom");
+            }
+        });
+        CompletionListeners.add(LISTENERS, holder, after);
+
+        CompletionListeners.complete(LISTENERS, holder);
+
+        assertEquals(1, before.count.get());
+        assertEquals(1, after.count.get());
+    }
+
+    private static final class Holder {
+        volatile CompletionListeners.Node listeners;
+    }
+
+    private static final class Counter implements Runnable {
+        final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public void run() {
+            count.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class DeadlineWorkExecutorTest extends WorkExecutorTestBase {
+
+    private final ExecutorService single = Executors.newSingleThreadExecutor();
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @After
+    public void tearDown() {
+        gate.countDown();
+        single.shutdownNow();
+    }
+
+    @Override
+    protected WorkExecutor getWorkExecutor() {
+        return new DeadlineWorkExecutor(new ExecutorServiceWorkExecutor(Executors.newCachedThreadPool()));
+    }
+
+    @Test
+    public void testSkipsWorkWhoseDeadlinePassedInQueue() throws Exception {
+        DeadlineWorkExecutor executor = new DeadlineWorkExecutor(new ExecutorServiceWorkExecutor(single));
+        executor.submit(new Gate());
+        Future<Integer> stale = executor.submit(new Count(), Deadline.after(20, MILLISECONDS));
+
+        Thread.sleep(50);
+        gate.countDown();
+
+        assertExpired(stale);
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    public void testRunsWorkThatStartsInTime() throws Exception {
+        DeadlineWorkExecutor executor = new DeadlineWorkExecutor(new ExecutorServiceWorkExecutor(single));
+
+        assertEquals(1, (int) executor.submit(new Count(), Deadline.after(1, SECONDS)).get(1, SECONDS));
+    }
+
+    @Test
+    public void testExpiredAtSubmissionNeverReachesUnderlyingExecutor() throws Exception {
+        ExecutorService shutDown = Executors.newSingleThreadExecutor();
+        shutDown.shutdown();
+        DeadlineWorkExecutor executor = new DeadlineWorkExecutor(new ExecutorServiceWorkExecutor(shutDown));
+
+        Future<Integer> future = executor.submit(new Count(), Deadline.after(0, MILLISECONDS));
+
+        assertExpired(future);
+    }
+
+    @Test
+    public void testAbandonsQueuedWorkWhenWaitTimesOut() throws Exception {
+        DeadlineWorkExecutor executor = new DeadlineWorkExecutor(new ExecutorServiceWorkExecutor(single), true);
+        executor.submit(new Gate());
+        Future<Integer> future = executor.submit(new Count());
+
+        assertFalse(executor.waitForCompletion(future, 20, MILLISECONDS));
+        gate.countDown();
+
+        assertExpired(future);
+        // let the single thread get past the abandoned task
+        executor.submit(new Count()).get(1, SECONDS);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testWaitTimeoutDoesNotAbandonRunningWork() throws Exception {
+        DeadlineWorkExecutor executor = new DeadlineWorkExecutor(new ExecutorServiceWorkExecutor(single), true);
+        Future<Void> running = executor.submit(new Gate());
+        Thread.sleep(20);
+
+        assertFalse(executor.waitForCompletion(running, 20, MILLISECONDS));
+        gate.countDown();
+
+        running.get(1, SECONDS);
+    }
+
+    @Test
+    public void testWaitTimeoutLeavesWorkAloneByDefault() throws Exception {
+        DeadlineWorkExecutor executor = new DeadlineWorkExecutor(new ExecutorServiceWorkExecutor(single));
+        executor.submit(new Gate());
+        Future<Integer> future = executor.submit(new Count());
+
+        assertFalse(executor.waitForCompletion(future, 20, MILLISECONDS));
+        gate.countDown();
+
+        assertEquals(1, (int) future.get(1, SECONDS));
+    }
+
+    @Test
+    public void testCancelledSiblingDoesNotAbandonTheRest() throws Exception {
+        DeadlineWorkExecutor executor = new DeadlineWorkExecutor(new ExecutorServiceWorkExecutor(single), true);
+        executor.submit(new Gate());
+        Future<Integer> cancelled = executor.submit(new Count());
+        Future<Integer> queued = executor.submit(new Count());
+        cancelled.cancel(false);
+
+        assertFalse(executor.waitForAllToComplete(Arrays.<Future<?>>asList(cancelled, queued), 1, SECONDS));
+        gate.countDown();
+
+        assertEquals(1, (int) queued.get(1, SECONDS));
+    }
+
+    @Test
+    public void testInterruptedWaitDoesNotAbandonWork() throws Exception {
+        DeadlineWorkExecutor executor = new DeadlineWorkExecutor(new ExecutorServiceWorkExecutor(single), true);
+        executor.submit(new Gate());
+        Future<Integer> queued = executor.submit(new Count());
+
+        Thread.currentThread().interrupt();
+        assertFalse(executor.waitForCompletion(queued, 1, SECONDS));
+        assertTrue(Thread.interrupted());
+        gate.countDown();
+
+        assertEquals(1, (int) queued.get(1, SECONDS));
+    }
+
+    private static void assertExpired(Future<?> future) throws InterruptedException {
+        try {
+            future.get(1, SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof DeadlineExceededException);
+        } catch (TimeoutException e) {
+            fail("future did not complete");
+        }
+    }
+
+    private final class Gate implements Callable<Void> {
+        @Override
+        public Void call() throws Exception {
+            gate.await();
+            return null;
+        }
+    }
+
+    private final class Count implements Callable<Integer> {
+        @Override
+        public Integer call() {
+            return runs.incrementAndGet();
+        }
+    }
+}
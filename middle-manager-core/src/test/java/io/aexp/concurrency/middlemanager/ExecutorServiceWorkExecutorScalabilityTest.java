@@ -0,0 +1,11 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.ExecutorService;
+
+public final class ExecutorServiceWorkExecutorScalabilityTest extends WorkExecutorScalabilityTestBase {
+
+    @Override
+    protected WorkExecutor getWorkExecutor(ExecutorService executorService) {
+        return new ExecutorServiceWorkExecutor(executorService);
+    }
+}
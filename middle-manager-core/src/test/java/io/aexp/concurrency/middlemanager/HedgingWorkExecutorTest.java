@@ -0,0 +1,202 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class HedgingWorkExecutorTest extends WorkExecutorTestBase {
+
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final SchedulingWorkExecutor scheduler =
+            new SchedulingWorkExecutor(new ExecutorServiceWorkExecutor(executorService));
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+        executorService.shutdownNow();
+    }
+
+    @Override
+    protected WorkExecutor getWorkExecutor() {
+        // called from the superclass's initializer, so this class's fields aren't set up yet
+        return new HedgingWorkExecutor(
+                new SchedulingWorkExecutor(new ExecutorServiceWorkExecutor(Executors.newCachedThreadPool())), 10);
+    }
+
+    @Test
+    public void testHedgeWinsWhenFirstAttemptIsSlow() throws Exception {
+        HedgingWorkExecutor executor = new HedgingWorkExecutor(scheduler, 100);
+        SlowFirstAttempt callable = new SlowFirstAttempt();
+
+        Future<Integer> future = executor.submitHedged(callable, 20, MILLISECONDS);
+
+        assertEquals(2, (int) future.get(1, SECONDS));
+        // the first attempt lost, so it was cancelled
+        assertTrue(callable.interrupted.await(1, SECONDS));
+        assertEquals(1, executor.getHedgeCount());
+        assertEquals(1, executor.getHedgeWinCount());
+    }
+
+    @Test
+    public void testNoHedgeWhenFirstAttemptIsFast() throws Exception {
+        HedgingWorkExecutor executor = new HedgingWorkExecutor(scheduler, 100);
+        final AtomicInteger calls = new AtomicInteger();
+
+        Future<Integer> future = executor.submitHedged(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return calls.incrementAndGet();
+            }
+        }, 50, MILLISECONDS);
+
+        assertEquals(1, (int) future.get(1, SECONDS));
+        Thread.sleep(100);
+        assertEquals(1, calls.get());
+        assertEquals(0, executor.getHedgeCount());
+    }
+
+    @Test
+    public void testFirstToFinishWinsEvenIfItFails() throws Exception {
+        HedgingWorkExecutor executor = new HedgingWorkExecutor(scheduler, 100);
+
+        Future<Void> future = executor.submitHedged(new Callable<Void>() {
+            @Override
+            public Void call() {
+                throw new IllegalStateException("kaboom");
+            }
+        }, 1, SECONDS);
+
+        try {
+            future.get(1, SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testBudgetCapsHedges() throws Exception {
+        HedgingWorkExecutor executor = new HedgingWorkExecutor(scheduler, 10);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(executor.submitHedged(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    Thread.sleep(50);
+                    return null;
+                }
+            }, 1, MILLISECONDS));
+        }
+
+        assertTrue(executor.waitForAllToComplete(futures, 1, SECONDS));
+        assertTrue(executor.getHedgeCount() > 0);
+        // 10% of 50
+        assertTrue(executor.getHedgeCount() <= 5);
+    }
+
+    @Test
+    public void testDerivesHedgeDelayFromLatencies() throws Exception {
+        HedgingWorkExecutor executor = new HedgingWorkExecutor(scheduler, 100, 50, 20);
+        assertEquals(-1, executor.getHedgeDelayNanos());
+
+        for (int i = 0; i < 20; i++) {
+            executor.submitHedged(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    Thread.sleep(10);
+                    return null;
+                }
+            }).get(1, SECONDS);
+        }
+
+        long delay = awaitHedgeDelay(executor);
+        assertTrue(delay >= MILLISECONDS.toNanos(10));
+        assertTrue(delay < MILLISECONDS.toNanos(500));
+
+        assertEquals(2, (int) executor.submitHedged(new SlowFirstAttempt()).get(1, SECONDS));
+        assertEquals(1, executor.getHedgeWinCount());
+    }
+
+    @Test
+    public void testWinningHedgeMeasuresFromSubmission() throws Exception {
+        // one sample per window, so the delay is the last latency recorded
+        HedgingWorkExecutor executor = new HedgingWorkExecutor(scheduler, 100, 50, 1);
+
+        assertEquals(2, (int) executor.submitHedged(new SlowFirstAttempt(), 50, MILLISECONDS).get(1, SECONDS));
+
+        // the hedge itself was quick, but the caller (and the primary it cancelled) waited out the hedge delay first
+        assertTrue(awaitHedgeDelay(executor) >= MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void testCancelCancelsBothAttempts() throws Exception {
+        HedgingWorkExecutor executor = new HedgingWorkExecutor(scheduler, 100);
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch interrupted = new CountDownLatch(2);
+
+        Future<Void> future = executor.submitHedged(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                started.countDown();
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+                return null;
+            }
+        }, 10, MILLISECONDS);
+
+        assertTrue(started.await(1, SECONDS));
+        future.cancel(true);
+        assertTrue(interrupted.await(1, SECONDS));
+    }
+
+    /**
+     * Latency is recorded once the result's listeners run, which may be just after its waiters wake up.
+     */
+    private static long awaitHedgeDelay(HedgingWorkExecutor executor) throws InterruptedException {
+        long deadline = System.nanoTime() + SECONDS.toNanos(1);
+        while (executor.getHedgeDelayNanos() < 0 && System.nanoTime() - deadline < 0) {
+            Thread.sleep(1);
+        }
+        return executor.getHedgeDelayNanos();
+    }
+
+    /**
+     * Hangs the first time it's called (until interrupted) and returns straight away after that.
+     */
+    private static final class SlowFirstAttempt implements Callable<Integer> {
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        @Override
+        public Integer call() throws Exception {
+            int call = calls.incrementAndGet();
+            if (call == 1) {
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+            }
+            return call;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class InstrumentedWorkExecutorTest extends WorkExecutorTestBase {
+
+    @Override
+    protected WorkExecutor getWorkExecutor() {
+        return new InstrumentedWorkExecutor(new ExecutorServiceWorkExecutor(Executors.newCachedThreadPool()));
+    }
+
+    @Test
+    public void testRecordsQueueWaitAndExecution() throws Exception {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        InstrumentedWorkExecutor executor = new InstrumentedWorkExecutor(new ExecutorServiceWorkExecutor(single));
+
+        final CountDownLatch gate = new CountDownLatch(1);
+        Future<Void> blocker = executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                gate.await();
+                Thread.sleep(20);
+                return null;
+            }
+        });
+        Future<Void> queued = executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                throw new RuntimeException("kaboom");
+            }
+        });
+
+        Thread.sleep(50);
+        assertEquals(1, executor.getInFlightCount());
+        assertEquals(1, executor.getQueuedCount());
+
+        gate.countDown();
+        assertTrue(executor.waitForAllToComplete(Collections.<Future<?>>singletonList(queued), 1, SECONDS));
+        blocker.get();
+
+        assertEquals(0, executor.getInFlightCount());
+        assertEquals(0, executor.getQueuedCount());
+        assertEquals(1, executor.getCompletedCount());
+        assertEquals(1, executor.getFailedCount());
+        assertEquals(2, executor.getExecutionHistogram().getCount());
+        assertTrue(executor.getExecutionNanosMax() >= MILLISECONDS.toNanos(20));
+        assertTrue(executor.getQueueWaitNanosMax() >= MILLISECONDS.toNanos(50));
+        assertTrue(executor.getWaitBlockedNanosTotal() > 0);
+        single.shutdown();
+    }
+
+    @Test
+    public void testCancelledBeforeStartLeavesQueue() throws Exception {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        InstrumentedWorkExecutor executor = new InstrumentedWorkExecutor(new ExecutorServiceWorkExecutor(single));
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+        executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                started.countDown();
+                gate.await();
+                return null;
+            }
+        });
+        started.await();
+        Future<?> queued = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+
+        queued.cancel(false);
+        assertEquals(0, executor.getQueuedCount());
+
+        gate.countDown();
+        single.shutdown();
+    }
+
+    @Test
+    public void testCountsRejections() {
+        ExecutorService shutDown = Executors.newSingleThreadExecutor();
+        shutDown.shutdown();
+        InstrumentedWorkExecutor executor = new InstrumentedWorkExecutor(new ExecutorServiceWorkExecutor(shutDown));
+
+        try {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            fail();
+        } catch (RejectedExecutionException e) {
+            assertEquals(1, executor.getRejectedCount());
+            assertEquals(0, executor.getQueuedCount());
+        }
+    }
+
+    @Test
+    public void testHistogramPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        assertEquals(100000, histogram.getCount());
+        assertEquals(100000000, histogram.getMax());
+        assertEquals(50000000, histogram.getValueAtPercentile(50), 50000000 / 32.0);
+        assertEquals(99000000, histogram.getValueAtPercentile(99), 99000000 / 32.0);
+    }
+}
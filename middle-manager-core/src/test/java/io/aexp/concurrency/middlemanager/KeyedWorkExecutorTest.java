@@ -0,0 +1,216 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class KeyedWorkExecutorTest extends WorkExecutorTestBase {
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Override
+    protected WorkExecutor getWorkExecutor() {
+        return new KeyedWorkExecutor<String>(new ExecutorServiceWorkExecutor(Executors.newCachedThreadPool()));
+    }
+
+    @Test
+    public void testRunsInSubmissionOrderPerKey() throws Exception {
+        final KeyedWorkExecutor<Integer> executor =
+                new KeyedWorkExecutor<Integer>(new ExecutorServiceWorkExecutor(executorService), 4);
+        final int keys = 20;
+        final int tasksPerKey = 500;
+        final List<List<Integer>> seen = new ArrayList<List<Integer>>();
+        for (int k = 0; k < keys; k++) {
+            // deliberately not synchronized: tasks for one key must never overlap
+            seen.add(new ArrayList<Integer>());
+        }
+
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < tasksPerKey; i++) {
+            for (int k = 0; k < keys; k++) {
+                final List<Integer> list = seen.get(k);
+                final int value = i;
+                futures.add(executor.submit(k, new Runnable() {
+                    @Override
+                    public void run() {
+                        list.add(value);
+                    }
+                }));
+            }
+        }
+
+        assertTrue(executor.waitForAllToComplete(futures, 10, SECONDS));
+        for (List<Integer> list : seen) {
+            assertEquals(tasksPerKey, list.size());
+            for (int i = 0; i < tasksPerKey; i++) {
+                assertEquals(i, (int) list.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testOrderAcrossConcurrentSubmitters() throws Exception {
+        final KeyedWorkExecutor<String> executor =
+                new KeyedWorkExecutor<String>(new ExecutorServiceWorkExecutor(executorService));
+        final List<String> seen = Collections.synchronizedList(new ArrayList<String>());
+        final List<Future<?>> futures = Collections.synchronizedList(new ArrayList<Future<?>>());
+
+        List<Thread> submitters = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final String name = "submitter" + t;
+            submitters.add(new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        final String value = name + ":" + i;
+                        futures.add(executor.submit("key", new Runnable() {
+                            @Override
+                            public void run() {
+                                seen.add(value);
+                            }
+                        }));
+                    }
+                }
+            });
+        }
+        for (Thread submitter : submitters) {
+            submitter.start();
+        }
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+
+        assertTrue(executor.waitForAllToComplete(new ArrayList<Future<?>>(futures), 10, SECONDS));
+        assertEquals(4000, seen.size());
+        // each submitter's own tasks were submitted in order, so they must have run in order
+        for (int t = 0; t < 4; t++) {
+            int last = -1;
+            for (String value : seen) {
+                if (value.startsWith("submitter" + t + ":")) {
+                    int i = Integer.parseInt(value.substring(value.indexOf(':') + 1));
+                    assertEquals(last + 1, i);
+                    last = i;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testHotKeyDoesNotStarveOthers() throws Exception {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        KeyedWorkExecutor<String> executor =
+                new KeyedWorkExecutor<String>(new ExecutorServiceWorkExecutor(single), 2);
+
+        List<Future<?>> hot = new ArrayList<Future<?>>();
+        for (int i = 0; i < 100; i++) {
+            hot.add(executor.submit("hot", new Sleep(5)));
+        }
+        Future<Void> cold = executor.submit("cold", new Sleep(0));
+
+        cold.get(1, SECONDS);
+        int hotDone = 0;
+        for (Future<?> future : hot) {
+            hotDone += future.isDone() ? 1 : 0;
+        }
+        assertTrue("hot key ran " + hotDone + " tasks first", hotDone < 10);
+        single.shutdownNow();
+    }
+
+    @Test
+    public void testIdleKeysAreRemoved() throws Exception {
+        KeyedWorkExecutor<Integer> executor =
+                new KeyedWorkExecutor<Integer>(new ExecutorServiceWorkExecutor(executorService));
+        final CountDownLatch gate = new CountDownLatch(1);
+
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int k = 0; k < 100; k++) {
+            futures.add(executor.submit(k, new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    gate.await();
+                    return null;
+                }
+            }));
+        }
+        assertTrue(executor.getActiveKeyCount() > 0);
+
+        gate.countDown();
+        assertTrue(executor.waitForAllToComplete(futures, 1, SECONDS));
+        long deadline = System.nanoTime() + SECONDS.toNanos(1);
+        while (executor.getActiveKeyCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, executor.getActiveKeyCount());
+    }
+
+    @Test
+    public void testRejectedLaneFailsItsWork() throws Exception {
+        ExecutorService shutDown = Executors.newSingleThreadExecutor();
+        shutDown.shutdown();
+        KeyedWorkExecutor<String> executor = new KeyedWorkExecutor<String>(new ExecutorServiceWorkExecutor(shutDown));
+
+        try {
+            executor.submit("key", new Sleep(0));
+            fail();
+        } catch (RejectedWorkException e) {
+            // expected
+        }
+        assertEquals(0, executor.getActiveKeyCount());
+    }
+
+    @Test
+    public void testFailedTaskDoesNotStopLane() throws Exception {
+        KeyedWorkExecutor<String> executor =
+                new KeyedWorkExecutor<String>(new ExecutorServiceWorkExecutor(executorService));
+
+        Future<Void> failed = executor.submit("key", new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                throw new Exception("kaboom");
+            }
+        });
+        Future<Void> next = executor.submit("key", new Sleep(0));
+
+        try {
+            failed.get(1, SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals("kaboom", e.getCause().getMessage());
+        }
+        next.get(1, SECONDS);
+        assertFalse(next.isCancelled());
+    }
+
+    private static final class Sleep implements Callable<Void> {
+        private final long millis;
+
+        Sleep(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            Thread.sleep(millis);
+            return null;
+        }
+    }
+}
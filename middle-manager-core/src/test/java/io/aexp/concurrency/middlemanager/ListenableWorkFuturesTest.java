@@ -0,0 +1,141 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class ListenableWorkFuturesTest {
+
+    private final ListenableWorkExecutor workExecutor =
+            new ExecutorServiceWorkExecutor(Executors.newCachedThreadPool());
+
+    @Test
+    public void testThenApplyTransformsResult() throws ExecutionException, InterruptedException {
+        ListenableWorkFuture<Integer> f = workExecutor.submit(value(2)).thenApply(new WorkFunction<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer input) {
+                return input * 21;
+            }
+        });
+
+        assertEquals(42, (int) f.get());
+    }
+
+    @Test
+    public void testThenApplyPropagatesFailure() throws InterruptedException {
+        ListenableWorkFuture<Integer> f = workExecutor.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                throw new RuntimeException("kaboom");
+            }
+        }).thenApply(new WorkFunction<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer input) {
+                fail();
+                return input;
+            }
+        });
+
+        try {
+            f.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals("kaboom", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testThenComposeChainsSubmissions() throws ExecutionException, InterruptedException {
+        ListenableWorkFuture<String> f = workExecutor.submit(value(2))
+                .thenCompose(new WorkFunction<Integer, ListenableWorkFuture<String>>() {
+                    @Override
+                    public ListenableWorkFuture<String> apply(Integer input) {
+                        return workExecutor.submit(value("x" + input));
+                    }
+                });
+
+        assertEquals("x2", f.get());
+    }
+
+    @Test
+    public void testAddListenerRunsOnExecutorAfterCompletion() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        workExecutor.submit(value(1)).addListener(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, Executors.newSingleThreadExecutor());
+
+        assertTrue(latch.await(1, SECONDS));
+    }
+
+    @Test
+    public void testAllOfCollectsResultsInOrder() throws ExecutionException, InterruptedException {
+        List<ListenableWorkFuture<Integer>> futures = Arrays.asList(
+                workExecutor.submit(sleepThenValue(50, 1)),
+                workExecutor.submit(value(2)),
+                workExecutor.submit(value(3)));
+
+        assertEquals(Arrays.asList(1, 2, 3), ListenableWorkFutures.allOf(futures).get());
+    }
+
+    @Test
+    public void testAllOfFailsWithoutWaitingForTheRest() throws InterruptedException {
+        List<ListenableWorkFuture<Integer>> futures = Arrays.asList(
+                workExecutor.submit(sleepThenValue(10000, 1)),
+                workExecutor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        throw new RuntimeException("kaboom");
+                    }
+                }));
+
+        try {
+            ListenableWorkFutures.allOf(futures).get(1, SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals("kaboom", e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void testAnyOfTakesFirstResult() throws Exception {
+        List<ListenableWorkFuture<Integer>> futures = Arrays.asList(
+                workExecutor.submit(sleepThenValue(10000, 1)),
+                workExecutor.submit(value(2)));
+
+        assertEquals(2, (int) ListenableWorkFutures.anyOf(futures).get(1, SECONDS));
+    }
+
+    private static <T> Callable<T> value(final T t) {
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return t;
+            }
+        };
+    }
+
+    private static <T> Callable<T> sleepThenValue(final long millis, final T t) {
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                Thread.sleep(millis);
+                return t;
+            }
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class NotifyingFutureTaskTest {
+
+    @Test
+    public void testClearsInterruptFromCancelTrue() {
+        NotifyingFutureTask<Void> task = cancelsItselfWhileRunning(true, false);
+
+        task.run();
+
+        assertTrue(task.isCancelled());
+        assertFalse(Thread.interrupted());
+    }
+
+    @Test
+    public void testKeepsInterruptFromElsewhereAfterCancelFalse() {
+        // e.g. a pool's shutdownNow interrupting its worker while the task runs
+        NotifyingFutureTask<Void> task = cancelsItselfWhileRunning(false, true);
+
+        task.run();
+
+        assertTrue(task.isCancelled());
+        assertTrue(Thread.interrupted());
+    }
+
+    private static NotifyingFutureTask<Void> cancelsItselfWhileRunning(final boolean mayInterruptIfRunning,
+            final boolean interruptedElsewhere) {
+        final AtomicReference<NotifyingFutureTask<Void>> self = new AtomicReference<NotifyingFutureTask<Void>>();
+        self.set(new NotifyingFutureTask<Void>(new Callable<Void>() {
+            @Override
+            public Void call() {
+                self.get().cancel(mayInterruptIfRunning);
+                if (interruptedElsewhere) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }
+        }));
+        return self.get();
+    }
+}
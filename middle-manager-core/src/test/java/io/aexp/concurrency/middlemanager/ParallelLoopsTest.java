@@ -0,0 +1,165 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class ParallelLoopsTest {
+
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final CountingWorkExecutor executor =
+            new CountingWorkExecutor(new ExecutorServiceWorkExecutor(executorService));
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testSubmitsOneTaskPerWorkerNotPerIndex() throws Exception {
+        final AtomicInteger sum = new AtomicInteger();
+        ParallelLoops.parallelFor(executor, 3, 0, 100000, new IndexedWork() {
+            @Override
+            public void run(int index) {
+                sum.incrementAndGet();
+            }
+        }).get(5, SECONDS);
+
+        assertEquals(100000, sum.get());
+        assertEquals(3, executor.submits.get());
+    }
+
+    @Test
+    public void testFailureStopsClaimingChunks() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        Future<Void> future = ParallelLoops.parallelFor(executor, 2, 0, 1000000, new IndexedWork() {
+            @Override
+            public void run(int index) {
+                runs.incrementAndGet();
+                throw new IllegalStateException("kaboom");
+            }
+        });
+
+        try {
+            future.get(5, SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        // each worker fails on the first index of its first chunk
+        assertTrue(runs.get() <= 2);
+    }
+
+    @Test
+    public void testCancellingStopsTheLoop() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+        final AtomicInteger runs = new AtomicInteger();
+        Future<Void> future = ParallelLoops.parallelFor(executor, 1, 0, 1000000, new IndexedWork() {
+            @Override
+            public void run(int index) throws Exception {
+                runs.incrementAndGet();
+                started.countDown();
+                gate.await();
+            }
+        });
+
+        started.await();
+        future.cancel(false);
+        gate.countDown();
+
+        try {
+            future.get();
+            fail();
+        } catch (CancellationException e) {
+            // expected
+        }
+        Thread.sleep(50);
+        // the first chunk runs to its end, but nothing after it is claimed
+        assertEquals(500000, runs.get());
+    }
+
+    @Test
+    public void testEmptyRangesCompleteWithoutSubmitting() throws Exception {
+        ParallelLoops.parallelFor(executor, 0, 0, new IndexedWork() {
+            @Override
+            public void run(int index) {
+                fail();
+            }
+        }).get(1, SECONDS);
+
+        int sum = ParallelLoops.mapReduce(executor, Collections.<Integer>emptyList(),
+                new WorkFunction<Integer, Integer>() {
+                    @Override
+                    public Integer apply(Integer input) {
+                        return input;
+                    }
+                }, new WorkReducer<Integer>() {
+                    @Override
+                    public Integer reduce(Integer left, Integer right) {
+                        return left + right;
+                    }
+                }, 0).get(1, SECONDS);
+
+        assertEquals(0, sum);
+        assertEquals(0, executor.submits.get());
+    }
+
+    @Test
+    public void testMapReduceCopiesSequentialLists() throws Exception {
+        List<String> inputs = new LinkedList<String>();
+        for (int i = 0; i < 1000; i++) {
+            inputs.add("x");
+        }
+
+        int length = ParallelLoops.mapReduce(executor, 4, inputs, new WorkFunction<String, Integer>() {
+            @Override
+            public Integer apply(String input) {
+                return input.length();
+            }
+        }, new WorkReducer<Integer>() {
+            @Override
+            public Integer reduce(Integer left, Integer right) {
+                return left + right;
+            }
+        }, 0).get(5, SECONDS);
+
+        assertEquals(1000, length);
+    }
+
+    private static final class CountingWorkExecutor extends WorkExecutorBase {
+        final AtomicInteger submits = new AtomicInteger();
+        private final WorkExecutor delegate;
+
+        CountingWorkExecutor(WorkExecutor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public <T extends Runnable> Future<T> submit(T runnable) {
+            submits.incrementAndGet();
+            return delegate.submit(runnable);
+        }
+
+        @Override
+        public <T> Future<T> submit(Callable<T> callable) {
+            submits.incrementAndGet();
+            return delegate.submit(callable);
+        }
+    }
+}
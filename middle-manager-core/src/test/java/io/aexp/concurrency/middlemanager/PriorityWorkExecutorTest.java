@@ -0,0 +1,151 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class PriorityWorkExecutorTest extends WorkExecutorTestBase {
+
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private final List<String> ran = new CopyOnWriteArrayList<String>();
+
+    @After
+    public void tearDown() {
+        gate.countDown();
+        executorService.shutdown();
+    }
+
+    @Override
+    protected WorkExecutor getWorkExecutor() {
+        return new PriorityWorkExecutor(new ExecutorServiceWorkExecutor(Executors.newCachedThreadPool()), 3, 1000,
+                100000, OverloadPolicy.FAIL_FAST, 1, SECONDS);
+    }
+
+    @Test
+    public void testRunsQueuedWorkInPriorityOrder() throws Exception {
+        PriorityWorkExecutor executor = priority(HOURS.toNanos(1), 4, OverloadPolicy.FAIL_FAST);
+        Future<String> blocker = executor.submit(new Record("blocker"));
+
+        executor.submit(new Record("low"), 0);
+        executor.submit(new Record("medium"), 1);
+        executor.submit(new Record("high"), 2);
+        Future<String> last = executor.submit(new Record("high again"), 2);
+        assertEquals(2, executor.getQueuedCount(2));
+
+        gate.countDown();
+        blocker.get(1, SECONDS);
+        last.get(1, SECONDS);
+        awaitIdle(executor);
+
+        assertEquals(asList("blocker", "high", "high again", "medium", "low"), ran);
+    }
+
+    @Test
+    public void testOldLowPriorityWorkOvertakesNewHighPriorityWork() throws Exception {
+        PriorityWorkExecutor executor = priority(MILLISECONDS.toNanos(20), 4, OverloadPolicy.FAIL_FAST);
+        Future<String> blocker = executor.submit(new Record("blocker"));
+
+        executor.submit(new Record("low"), 0);
+        // 100ms is five levels of aging, which outranks anything submitted now
+        Thread.sleep(100);
+        executor.submit(new Record("high"), 2);
+
+        gate.countDown();
+        blocker.get(1, SECONDS);
+        awaitIdle(executor);
+
+        assertEquals(asList("blocker", "low", "high"), ran);
+    }
+
+    @Test
+    public void testDropOldestDropsLowestPriorityFirst() throws Exception {
+        PriorityWorkExecutor executor = priority(HOURS.toNanos(1), 2, OverloadPolicy.DROP_OLDEST);
+        Future<String> blocker = executor.submit(new Record("blocker"));
+
+        Future<String> high = executor.submit(new Record("high"), 2);
+        Future<String> low = executor.submit(new Record("low"), 0);
+        Future<String> medium = executor.submit(new Record("medium"), 1);
+
+        try {
+            low.get(1, SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedWorkException);
+        }
+
+        gate.countDown();
+        blocker.get(1, SECONDS);
+        assertEquals("high", high.get(1, SECONDS));
+        assertEquals("medium", medium.get(1, SECONDS));
+    }
+
+    @Test
+    public void testRejectsPrioritiesOutOfRange() {
+        PriorityWorkExecutor executor = priority(HOURS.toNanos(1), 4, OverloadPolicy.FAIL_FAST);
+        try {
+            executor.submit(new Record("too high"), 3);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            executor.submit(new Record("negative"), -1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(0, executor.getInFlightCount());
+    }
+
+    /**
+     * One task at a time, so that everything after the first task waits its turn.
+     */
+    private PriorityWorkExecutor priority(long agingNanos, int maxQueued, OverloadPolicy policy) {
+        return new PriorityWorkExecutor(new ExecutorServiceWorkExecutor(executorService), 3, 1, maxQueued, policy,
+                agingNanos, NANOSECONDS);
+    }
+
+    private static void awaitIdle(PriorityWorkExecutor executor) throws InterruptedException {
+        long deadline = System.nanoTime() + SECONDS.toNanos(2);
+        while ((executor.getInFlightCount() > 0 || executor.getQueuedCount() > 0) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, executor.getInFlightCount());
+        assertEquals(0, executor.getQueuedCount());
+    }
+
+    /**
+     * Records that it ran, once the gate opens.
+     */
+    private class Record implements Callable<String> {
+        private final String name;
+
+        Record(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String call() throws Exception {
+            gate.await();
+            ran.add(name);
+            return name;
+        }
+    }
+}
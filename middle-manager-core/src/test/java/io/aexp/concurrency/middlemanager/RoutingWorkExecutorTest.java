@@ -0,0 +1,158 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class RoutingWorkExecutorTest extends WorkExecutorTestBase {
+
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        executorService.shutdown();
+    }
+
+    @Override
+    protected WorkExecutor getWorkExecutor() {
+        return new RoutingWorkExecutor(new ExecutorServiceWorkExecutor(Executors.newCachedThreadPool()),
+                new ExecutorServiceWorkExecutor(Executors.newCachedThreadPool()), 50);
+    }
+
+    @Test
+    public void testSplitsSubmissionsEvenly() throws Exception {
+        RoutingWorkExecutor executor = newRoutingWorkExecutor(25);
+
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(executor.submit(new NoOp()));
+        }
+        assertTrue(executor.waitForAllToComplete(futures, 1, SECONDS));
+
+        assertEquals(75, executor.getCurrentMetrics().getCompletedCount());
+        assertEquals(25, executor.getCandidateMetrics().getCompletedCount());
+    }
+
+    @Test
+    public void testPercentageCanChangeAtRuntime() throws Exception {
+        RoutingWorkExecutor executor = newRoutingWorkExecutor(0);
+        executor.submit(new NoOp()).get(1, SECONDS);
+
+        executor.setCandidatePercent(100);
+        executor.submit(new NoOp()).get(1, SECONDS);
+        executor.submit(new NoOp()).get(1, SECONDS);
+
+        assertEquals(100, executor.getCandidatePercent());
+        assertEquals(1, executor.getCurrentMetrics().getCompletedCount());
+        assertEquals(2, executor.getCandidateMetrics().getCompletedCount());
+    }
+
+    @Test
+    public void testMeasuresEachSideSeparately() throws Exception {
+        RoutingWorkExecutor executor = newRoutingWorkExecutor(50);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    throw new IllegalStateException("kaboom");
+                }
+            }));
+        }
+        executor.waitForAllToComplete(futures, 1, SECONDS);
+
+        assertEquals(5, executor.getCurrentMetrics().getFailedCount());
+        assertEquals(5, executor.getCandidateMetrics().getFailedCount());
+        assertEquals(5, executor.getCandidateMetrics().getExecutionHistogram().getCount());
+    }
+
+    @Test
+    public void testSubmitAllKeepsSubmissionOrder() throws Exception {
+        RoutingWorkExecutor executor = newRoutingWorkExecutor(30);
+        List<Callable<Integer>> callables = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 20; i++) {
+            final int value = i;
+            callables.add(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return value;
+                }
+            });
+        }
+
+        List<Future<Integer>> futures = executor.submitAll(callables);
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i, (int) futures.get(i).get(1, SECONDS));
+        }
+        assertEquals(14, executor.getCurrentMetrics().getCompletedCount());
+        assertEquals(6, executor.getCandidateMetrics().getCompletedCount());
+    }
+
+    @Test
+    public void testRejectsBadPercentages() {
+        try {
+            newRoutingWorkExecutor(101);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        RoutingWorkExecutor executor = newRoutingWorkExecutor(10);
+        try {
+            executor.setCandidatePercent(-1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals(10, executor.getCandidatePercent());
+        }
+    }
+
+    @Test
+    public void testCancelsCurrentSideOfBatchIfCandidateRejects() {
+        ExecutorService shutDown = Executors.newSingleThreadExecutor();
+        shutDown.shutdown();
+        RoutingWorkExecutor executor = new RoutingWorkExecutor(new ExecutorServiceWorkExecutor(executorService),
+                new ExecutorServiceWorkExecutor(shutDown), 50);
+
+        List<Callable<Void>> callables = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < 4; i++) {
+            callables.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    Thread.sleep(1000);
+                    return null;
+                }
+            });
+        }
+
+        try {
+            executor.submitAll(callables);
+            fail();
+        } catch (RejectedWorkException e) {
+            assertEquals(2, executor.getCandidateMetrics().getRejectedCount());
+            // the current side's half of the batch was cancelled
+            assertEquals(0, executor.getCurrentMetrics().getQueuedCount());
+        }
+    }
+
+    private RoutingWorkExecutor newRoutingWorkExecutor(int candidatePercent) {
+        return new RoutingWorkExecutor(new ExecutorServiceWorkExecutor(executorService),
+                new ExecutorServiceWorkExecutor(executorService), candidatePercent);
+    }
+
+    private static class NoOp implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+}
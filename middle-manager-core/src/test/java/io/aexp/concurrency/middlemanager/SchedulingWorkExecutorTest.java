@@ -0,0 +1,214 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class SchedulingWorkExecutorTest extends WorkExecutorTestBase {
+
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final List<SchedulingWorkExecutor> executors = new ArrayList<SchedulingWorkExecutor>();
+
+    @After
+    public void tearDown() {
+        for (SchedulingWorkExecutor executor : executors) {
+            executor.shutdown();
+        }
+        executorService.shutdownNow();
+    }
+
+    @Override
+    protected WorkExecutor getWorkExecutor() {
+        // called from the superclass's initializer, so this class's fields aren't set up yet
+        return new SchedulingWorkExecutor(new ExecutorServiceWorkExecutor(Executors.newCachedThreadPool()));
+    }
+
+    @Test
+    public void testRunsAfterDelay() throws Exception {
+        SchedulingWorkExecutor executor = scheduling(new ExecutorServiceWorkExecutor(executorService));
+        long start = System.nanoTime();
+
+        Future<Long> future = executor.schedule(new Callable<Long>() {
+            @Override
+            public Long call() {
+                return System.nanoTime();
+            }
+        }, 50, MILLISECONDS);
+
+        long ranAt = future.get(1, SECONDS);
+        assertTrue(ranAt - start >= MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void testNeverRunsEarlyAcrossWheelLevels() throws Exception {
+        // 10us ticks push delays of a few ms and up into the higher wheels, so this exercises cascading
+        SchedulingWorkExecutor executor = new SchedulingWorkExecutor(new ExecutorServiceWorkExecutor(executorService),
+                10, MICROSECONDS, Executors.defaultThreadFactory());
+        executors.add(executor);
+
+        Random random = new Random(42);
+        final AtomicInteger early = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < 10000; i++) {
+            final long delayNanos = MILLISECONDS.toNanos(random.nextInt(300));
+            final long scheduledAt = System.nanoTime();
+            futures.add(executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (System.nanoTime() - scheduledAt < delayNanos) {
+                        early.incrementAndGet();
+                    }
+                }
+            }, delayNanos, NANOSECONDS));
+        }
+
+        assertTrue(executor.waitForAllToComplete(futures, 5, SECONDS));
+        assertEquals(0, early.get());
+    }
+
+    @Test
+    public void testCancelledTimerDoesNotRun() throws Exception {
+        SchedulingWorkExecutor executor = scheduling(new ExecutorServiceWorkExecutor(executorService));
+        final AtomicInteger runs = new AtomicInteger();
+
+        Future<?> future = executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        }, 20, MILLISECONDS);
+        assertTrue(future.cancel(false));
+
+        Thread.sleep(50);
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    public void testFixedRateRunsUntilCancelled() throws Exception {
+        SchedulingWorkExecutor executor = scheduling(new ExecutorServiceWorkExecutor(executorService));
+        final AtomicInteger runs = new AtomicInteger();
+
+        Future<Void> future = executor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        }, 0, 5, MILLISECONDS);
+
+        Thread.sleep(100);
+        future.cancel(false);
+        int runsAtCancel = runs.get();
+        assertTrue("ran " + runsAtCancel + " times", runsAtCancel >= 5 && runsAtCancel <= 21);
+
+        Thread.sleep(30);
+        assertTrue(runs.get() <= runsAtCancel + 1);
+    }
+
+    @Test
+    public void testFixedRateStopsWhenRunThrows() throws Exception {
+        SchedulingWorkExecutor executor = scheduling(new ExecutorServiceWorkExecutor(executorService));
+        final AtomicInteger runs = new AtomicInteger();
+
+        Future<Void> future = executor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                if (runs.incrementAndGet() == 3) {
+                    throw new IllegalStateException("kaboom");
+                }
+            }
+        }, 0, 1, MILLISECONDS);
+
+        try {
+            future.get(1, SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        Thread.sleep(10);
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    public void testRejectedByUnderlyingExecutor() throws Exception {
+        ExecutorService shutDown = Executors.newSingleThreadExecutor();
+        shutDown.shutdown();
+        SchedulingWorkExecutor executor = scheduling(new ExecutorServiceWorkExecutor(shutDown));
+
+        Future<?> future = executor.schedule(new NoOp(), 1, MILLISECONDS);
+
+        try {
+            future.get(1, SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedWorkException);
+        }
+    }
+
+    @Test
+    public void testShutdownCancelsPendingTimers() throws Exception {
+        SchedulingWorkExecutor executor = scheduling(new ExecutorServiceWorkExecutor(executorService));
+        Future<?> future = executor.schedule(new NoOp(), 1, SECONDS);
+
+        executor.shutdown();
+
+        long deadline = System.nanoTime() + SECONDS.toNanos(1);
+        while (!future.isDone() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(future.isCancelled());
+        try {
+            executor.schedule(new NoOp(), 1, MILLISECONDS);
+            fail();
+        } catch (RejectedWorkException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testTickerThreadComesFromFactory() throws Exception {
+        final AtomicInteger created = new AtomicInteger();
+        SchedulingWorkExecutor executor = new SchedulingWorkExecutor(new ExecutorServiceWorkExecutor(executorService),
+                1, MILLISECONDS, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                created.incrementAndGet();
+                Thread thread = new Thread(r);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executors.add(executor);
+
+        executor.schedule(new NoOp(), 1, MILLISECONDS).get(1, SECONDS);
+        assertEquals(1, created.get());
+    }
+
+    private SchedulingWorkExecutor scheduling(WorkExecutor delegate) {
+        SchedulingWorkExecutor executor = new SchedulingWorkExecutor(delegate);
+        executors.add(executor);
+        return executor;
+    }
+
+    private static final class NoOp implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+}
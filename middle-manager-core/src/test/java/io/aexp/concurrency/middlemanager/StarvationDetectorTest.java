@@ -0,0 +1,228 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class StarvationDetectorTest extends WorkExecutorTestBase {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+    private final ExecutorService overflow = Executors.newCachedThreadPool();
+    private final RecordingListener listener = new RecordingListener();
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+        overflow.shutdownNow();
+    }
+
+    @Override
+    protected WorkExecutor getWorkExecutor() {
+        return new ExecutorServiceWorkExecutor(Executors.newCachedThreadPool(),
+                new StarvationDetector(4, new RecordingListener(), Executors.newCachedThreadPool()));
+    }
+
+    @Test
+    public void testReportsWorkersWaitingOnWorkQueuedBehindThem() throws Exception {
+        StarvationDetector detector = new StarvationDetector(2, listener);
+        List<Future<Boolean>> outers = submitNestedWaits(detector, 300);
+
+        // the first to time out frees its worker, which may then get the other's inner task done in time
+        assertFalse(outers.get(0).get(5, SECONDS) && outers.get(1).get(5, SECONDS));
+        assertEquals(1, listener.events.get());
+        assertEquals(2, listener.lastBlocked);
+        assertEquals(2, listener.lastQueued);
+    }
+
+    @Test
+    public void testOverflowRunsTheWorkStarvedWorkersWaitOn() throws Exception {
+        StarvationDetector detector = new StarvationDetector(2, listener, overflow);
+        long start = System.nanoTime();
+        List<Future<Boolean>> outers = submitNestedWaits(detector, 10000);
+
+        for (Future<Boolean> outer : outers) {
+            assertTrue(outer.get(5, SECONDS));
+        }
+        assertTrue(System.nanoTime() - start < SECONDS.toNanos(2));
+        assertEquals(1, listener.events.get());
+        assertEquals(0, detector.getBlockedCount());
+    }
+
+    @Test
+    public void testIgnoresWaitsThatAFreeWorkerCanSatisfy() throws Exception {
+        StarvationDetector detector = new StarvationDetector(2, listener);
+        final ExecutorServiceWorkExecutor executor = new ExecutorServiceWorkExecutor(pool, detector);
+
+        Future<Boolean> outer = executor.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                Future<?> inner = executor.submit(new NoOp());
+                return executor.waitForCompletion(inner, 1, SECONDS);
+            }
+        });
+
+        assertTrue(outer.get(5, SECONDS));
+        assertEquals(0, listener.events.get());
+        assertEquals(0, detector.getQueuedCount());
+    }
+
+    @Test
+    public void testIgnoresWaitsOnOtherExecutors() throws Exception {
+        StarvationDetector detector = new StarvationDetector(1, listener);
+        final ExecutorServiceWorkExecutor executor = new ExecutorServiceWorkExecutor(pool, detector);
+        final WorkExecutor other = new ExecutorServiceWorkExecutor(overflow);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+        executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                started.countDown();
+                gate.await();
+                return null;
+            }
+        });
+        started.await();
+
+        // one worker is busy and one task queued, but this waits on the other executor's work
+        Future<Boolean> outer = executor.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return other.waitForCompletion(other.submit(new NoOp()), 1, SECONDS);
+            }
+        });
+        Future<?> queued = executor.submit(new NoOp());
+
+        assertTrue(outer.get(5, SECONDS));
+        gate.countDown();
+        queued.get(5, SECONDS);
+        assertEquals(0, listener.events.get());
+    }
+
+    @Test
+    public void testOverflowThreadsDoNotCountAsBlockedWorkers() throws Exception {
+        // hold on to overflowed work so it can be run on a thread of our choosing
+        final BlockingQueue<Runnable> overflowed = new LinkedBlockingQueue<Runnable>();
+        StarvationDetector detector = new StarvationDetector(2, listener, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                overflowed.add(command);
+            }
+        });
+        final ExecutorServiceWorkExecutor executor = new ExecutorServiceWorkExecutor(pool, detector);
+        final CountDownLatch gate = new CountDownLatch(1);
+        final AtomicInteger timedOut = new AtomicInteger();
+        final Callable<Boolean> waitOnNewWork = new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return executor.waitForCompletion(executor.submit(new NoOp()), 500, MILLISECONDS);
+            }
+        };
+        final CountDownLatch bothRunning = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    bothRunning.countDown();
+                    bothRunning.await();
+                    if (executor.waitForCompletion(executor.submit(waitOnNewWork), 100, MILLISECONDS)) {
+                        return true;
+                    }
+                    // once the overflowed work is waiting, one worker keeps busy and the other waits on the queue
+                    if (timedOut.getAndIncrement() == 0) {
+                        gate.await();
+                        return false;
+                    }
+                    return waitOnNewWork.call();
+                }
+            });
+        }
+
+        Runnable starved = overflowed.poll(1, SECONDS);
+        assertEquals(1, listener.events.get());
+        new Thread(starved).start();
+
+        // one busy worker can still get to the queue, so the pool isn't starved this time
+        Thread.sleep(300);
+        assertEquals(1, listener.events.get());
+        gate.countDown();
+    }
+
+    @Test
+    public void testCancelledWorkLeavesTheQueuedCount() throws Exception {
+        StarvationDetector detector = new StarvationDetector(1, listener);
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        ExecutorServiceWorkExecutor executor = new ExecutorServiceWorkExecutor(single, detector);
+        final CountDownLatch gate = new CountDownLatch(1);
+        executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                gate.await();
+                return null;
+            }
+        });
+        Future<?> queued = executor.submit(new NoOp());
+        Thread.sleep(50);
+        assertEquals(1, detector.getQueuedCount());
+
+        queued.cancel(false);
+        assertEquals(0, detector.getQueuedCount());
+        gate.countDown();
+        single.shutdown();
+    }
+
+    /**
+     * Fill both of the pool's workers with tasks that each wait on a task queued behind them.
+     */
+    private List<Future<Boolean>> submitNestedWaits(StarvationDetector detector, final long waitMillis) {
+        final ExecutorServiceWorkExecutor executor = new ExecutorServiceWorkExecutor(pool, detector);
+        final CountDownLatch bothRunning = new CountDownLatch(2);
+        List<Future<Boolean>> outers = new ArrayList<Future<Boolean>>();
+        for (int i = 0; i < 2; i++) {
+            outers.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    bothRunning.countDown();
+                    bothRunning.await();
+                    Future<?> inner = executor.submit(new NoOp());
+                    return executor.waitForCompletion(inner, waitMillis, MILLISECONDS);
+                }
+            }));
+        }
+        return outers;
+    }
+
+    private static class NoOp implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+
+    private static class RecordingListener implements StarvationListener {
+        final AtomicInteger events = new AtomicInteger();
+        volatile int lastBlocked;
+        volatile int lastQueued;
+
+        @Override
+        public void starvationDetected(int blockedWorkers, int queuedTasks) {
+            lastBlocked = blockedWorkers;
+            lastQueued = queuedTasks;
+            events.incrementAndGet();
+        }
+    }
+}
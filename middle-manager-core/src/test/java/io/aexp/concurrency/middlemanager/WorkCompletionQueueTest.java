@@ -0,0 +1,155 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import org.junit.After;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public final class WorkCompletionQueueTest {
+
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final WorkCompletionQueue<Integer> queue =
+            new WorkCompletionQueue<Integer>(new ExecutorServiceWorkExecutor(executorService));
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testHandsOutFuturesInCompletionOrder() throws Exception {
+        List<Callable<Integer>> callables = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 5; i++) {
+            callables.add(sleepThenReturn(i, (5 - i) * 40));
+        }
+        queue.submitAll(callables);
+
+        for (int i = 4; i >= 0; i--) {
+            assertEquals(i, (int) queue.poll(1, SECONDS).get());
+        }
+        assertEquals(0, queue.getPendingCount());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testPollTimesOut() throws Exception {
+        final CountDownLatch gate = new CountDownLatch(1);
+        Future<Integer> future = queue.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                gate.await();
+                return 1;
+            }
+        });
+
+        assertNull(queue.poll());
+        assertNull(queue.poll(20, MILLISECONDS));
+        assertEquals(1, queue.getPendingCount());
+
+        gate.countDown();
+        assertSame(future, queue.poll(1, SECONDS));
+        assertEquals(0, queue.getPendingCount());
+    }
+
+    @Test
+    public void testHandsOutCancelledFutures() throws Exception {
+        final CountDownLatch gate = new CountDownLatch(1);
+        Future<Integer> future = queue.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                gate.await();
+                return 1;
+            }
+        });
+
+        future.cancel(true);
+
+        assertSame(future, queue.poll(1, SECONDS));
+        assertTrue(future.isCancelled());
+    }
+
+    @Test
+    public void testDrainsEverythingPending() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            queue.submit(sleepThenReturn(i, i % 7));
+        }
+
+        int sum = 0;
+        int count = 0;
+        for (Iterator<Future<Integer>> it = queue.drain(5, SECONDS); it.hasNext(); ) {
+            Future<Integer> future = it.next();
+            assertTrue(future.isDone());
+            sum += future.get();
+            count++;
+        }
+
+        assertEquals(100, count);
+        assertEquals(99 * 100 / 2, sum);
+        assertEquals(0, queue.getPendingCount());
+    }
+
+    @Test
+    public void testDrainStopsAtTimeout() throws Exception {
+        queue.submit(sleepThenReturn(1, 0));
+        queue.submit(sleepThenReturn(2, 10000));
+
+        Iterator<Future<Integer>> it = queue.drain(100, MILLISECONDS);
+        assertTrue(it.hasNext());
+        assertEquals(1, (int) it.next().get());
+        assertFalse(it.hasNext());
+        assertEquals(1, queue.getPendingCount());
+    }
+
+    @Test
+    public void testChecksFuturesThatCannotNotify() throws Exception {
+        WorkCompletionQueue<Integer> plainQueue = new WorkCompletionQueue<Integer>(new PlainFutureWorkExecutor());
+        Future<Integer> future = plainQueue.submit(sleepThenReturn(3, 20));
+
+        assertSame(future, plainQueue.poll(1, SECONDS));
+        assertEquals(3, (int) future.get());
+    }
+
+    private static Callable<Integer> sleepThenReturn(final int value, final long sleepMillis) {
+        return new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                Thread.sleep(sleepMillis);
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Issues plain FutureTasks, which can't tell anyone they're done.
+     */
+    private final class PlainFutureWorkExecutor extends WorkExecutorBase {
+        @Override
+        public <T extends Runnable> Future<T> submit(T runnable) {
+            FutureTask<T> future = new FutureTask<T>(runnable, runnable);
+            executorService.execute(future);
+            return future;
+        }
+
+        @Override
+        public <T> Future<T> submit(Callable<T> callable) {
+            FutureTask<T> future = new FutureTask<T>(callable);
+            executorService.execute(future);
+            return future;
+        }
+    }
+}
@@ -1,62 +1,435 @@
 package io.aexp.concurrency.middlemanager.ibm;
 
 import com.ibm.websphere.asynchbeans.Work;
+import com.ibm.websphere.asynchbeans.WorkEvent;
 import com.ibm.websphere.asynchbeans.WorkException;
+import com.ibm.websphere.asynchbeans.WorkItem;
+import com.ibm.websphere.asynchbeans.WorkListener;
 import com.ibm.websphere.asynchbeans.WorkManager;
+import io.aexp.concurrency.middlemanager.CompactFutureTask;
+import io.aexp.concurrency.middlemanager.ListenableWorkExecutor;
+import io.aexp.concurrency.middlemanager.ListenableWorkFuture;
+import io.aexp.concurrency.middlemanager.RejectedWorkException;
+import io.aexp.concurrency.middlemanager.StarvationDetector;
 import io.aexp.concurrency.middlemanager.WorkExecutorBase;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
-import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * WorkExecutor backed by a WorkManager.
+ *
+ * Work is started with a {@link WorkListener} so that the container's own events (notably rejection) complete the
+ * futures, and the resulting {@link WorkItem}s are kept so that waiting on futures from this executor is delegated to
+ * {@link WorkManager#join(ArrayList, boolean, int)} rather than parking threads of our own.
+ */
 @ThreadSafe
-public final class WorkManagerWorkExecutor extends WorkExecutorBase {
+public final class WorkManagerWorkExecutor extends WorkExecutorBase implements ListenableWorkExecutor {
+    /**
+     * Longest single WorkManager#join, so that waiters notice interrupts and cancellations.
+     */
+    private static final long JOIN_SLICE_NANOS = MILLISECONDS.toNanos(100);
+
     private final WorkManager workManager;
+    private final long startTimeoutMillis;
+    private final int maxCarriersPerBatch;
 
     public WorkManagerWorkExecutor(WorkManager workManager) {
+        this(workManager, WorkManager.INDEFINITE);
+    }
+
+    /**
+     * @param workManager        work manager to run work on
+     * @param startTimeoutMillis how long submitted work may wait to be started before the WorkManager rejects it, as
+     *                           in {@link WorkManager#startWork(Work, long, WorkListener)}
+     */
+    public WorkManagerWorkExecutor(WorkManager workManager, long startTimeoutMillis) {
+        this(workManager, startTimeoutMillis, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param workManager         work manager to run work on
+     * @param startTimeoutMillis  how long submitted work may wait to be started before the WorkManager rejects it, as
+     *                            in {@link WorkManager#startWork(Work, long, WorkListener)}
+     * @param maxCarriersPerBatch the most Work units {@link #submitAll(Collection)} will start for one batch. Larger
+     *                            batches are packed into this many carriers, which share the batch between them.
+     */
+    public WorkManagerWorkExecutor(WorkManager workManager, long startTimeoutMillis, int maxCarriersPerBatch) {
+        if (maxCarriersPerBatch < 1) {
+            throw new IllegalArgumentException("Need at least one carrier per batch");
+        }
+
         this.workManager = workManager;
+        this.startTimeoutMillis = startTimeoutMillis;
+        this.maxCarriersPerBatch = maxCarriersPerBatch;
     }
 
     @Nonnull
     @Override
-    public <T extends Runnable> Future<T> submit(T runnable) {
-        FutureTask<T> future = new FutureTask<T>(runnable, runnable);
+    public <T extends Runnable> ListenableWorkFuture<T> submit(T runnable) {
+        WorkItemFuture<T> future = new WorkItemFuture<T>(this, runnable, runnable);
         run(future);
         return future;
     }
 
     @Nonnull
     @Override
-    public <T> Future<T> submit(Callable<T> callable) {
-        FutureTask<T> future = new FutureTask<T>(callable);
+    public <T> ListenableWorkFuture<T> submit(Callable<T> callable) {
+        WorkItemFuture<T> future = new WorkItemFuture<T>(this, callable);
         run(future);
         return future;
     }
 
-    private void run(final Runnable runnable) {
+    @Nonnull
+    @Override
+    public <T> List<Future<T>> submitAll(Collection<? extends Callable<T>> callables) {
+        if (callables.size() <= maxCarriersPerBatch) {
+            return super.submitAll(callables);
+        }
+
+        List<Future<T>> futures = new ArrayList<Future<T>>(callables.size());
+        for (Callable<T> callable : callables) {
+            futures.add(new WorkItemFuture<T>(this, callable));
+        }
+
+        // These futures share carriers' WorkItems, so they have none of their own and waiting on them goes through
+        // the completion listeners rather than join.
+        Batch batch = new Batch(futures, maxCarriersPerBatch);
+        int started = 0;
+        for (int i = 0; i < maxCarriersPerBatch; i++) {
+            Carrier carrier = new Carrier(batch);
+            try {
+                workManager.startWork(carrier, startTimeoutMillis, carrier);
+                started++;
+            } catch (WorkException e) {
+                if (started == 0) {
+                    cancelAll(futures);
+                    throw new RejectedWorkException("Could not schedule Work", e);
+                }
+                // the carriers we did start will get through the batch
+                carrier.workRejected(null);
+            }
+        }
+
+        return futures;
+    }
+
+    @Override
+    public boolean waitForAnyToComplete(List<Future<?>> futures, long timeout, TimeUnit unit) {
+        ArrayList<WorkItem> workItems = getWorkItems(futures);
+        if (workItems == null) {
+            return super.waitForAnyToComplete(futures, timeout, unit);
+        }
+
+        StarvationDetector detector = startWaiting(futures);
+        try {
+            return join(futures, workItems, WorkManager.JOIN_OR, unit.toNanos(timeout));
+        } finally {
+            stopWaiting(detector);
+        }
+    }
+
+    @Override
+    public boolean waitForAllToComplete(List<Future<?>> futures, long timeout, TimeUnit unit) {
+        ArrayList<WorkItem> workItems = getWorkItems(futures);
+        if (workItems == null) {
+            return super.waitForAllToComplete(futures, timeout, unit);
+        }
+
+        StarvationDetector detector = startWaiting(futures);
+        try {
+            return join(futures, workItems, WorkManager.JOIN_AND, unit.toNanos(timeout));
+        } finally {
+            stopWaiting(detector);
+        }
+    }
+
+    /**
+     * Join in slices of at most {@link #JOIN_SLICE_NANOS}. WorkManager#join can't be interrupted, and a future
+     * cancelled while its Work is still queued doesn't complete its WorkItem, so between slices we look for both.
+     */
+    private boolean join(List<Future<?>> futures, ArrayList<WorkItem> workItems, boolean joinType,
+            long timeoutNanos) {
+        long deadline = nanoTime() + timeoutNanos;
+        while (true) {
+            if (joinType == WorkManager.JOIN_OR) {
+                for (Future<?> future : futures) {
+                    if (future.isDone()) {
+                        return true;
+                    }
+                }
+            } else {
+                boolean allDone = true;
+                for (Future<?> future : futures) {
+                    if (future.isCancelled()) {
+                        // I think it's defensible to say canceled => did not complete.
+                        return false;
+                    }
+
+                    allDone &= future.isDone();
+                }
+                if (allDone) {
+                    return true;
+                }
+            }
+
+            long remaining = deadline - nanoTime();
+            if (remaining <= 0 || Thread.currentThread().isInterrupted()) {
+                // like the other waits, leave the interrupt set for the caller
+                return false;
+            }
+
+            if (workManager.join(workItems, joinType, toJoinTimeout(min(remaining, JOIN_SLICE_NANOS), NANOSECONDS))) {
+                return joinType == WorkManager.JOIN_OR || !anyCancelled(futures);
+            }
+        }
+    }
+
+    private static boolean anyCancelled(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            if (future.isCancelled()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void run(WorkItemFuture<?> future) {
         try {
-            workManager.startWork(new WorkWrapper(runnable));
+            future.workItem = workManager.startWork(future, startTimeoutMillis, future);
         } catch (WorkException e) {
-            throw new RuntimeException("Could not schedule Work", e);
+            throw new RejectedWorkException("Could not schedule Work", e);
+        }
+    }
+
+    /**
+     * @return the work items backing the futures, or null if any of them didn't come from this executor's WorkManager
+     * (in which case join can't be used)
+     */
+    @Nullable
+    private ArrayList<WorkItem> getWorkItems(List<Future<?>> futures) {
+        if (futures.isEmpty()) {
+            return null;
+        }
+
+        ArrayList<WorkItem> workItems = new ArrayList<WorkItem>(futures.size());
+        for (Future<?> future : futures) {
+            if (!(future instanceof WorkItemFuture)) {
+                return null;
+            }
+
+            WorkItemFuture<?> workItemFuture = (WorkItemFuture<?>) future;
+            if (workItemFuture.owner != this || workItemFuture.workItem == null) {
+                return null;
+            }
+
+            workItems.add(workItemFuture.workItem);
+        }
+
+        return workItems;
+    }
+
+    /**
+     * WorkManager#join takes int milliseconds; round sub-millisecond timeouts up rather than to zero.
+     */
+    private static int toJoinTimeout(long timeout, TimeUnit unit) {
+        long nanos = unit.toNanos(timeout);
+        long millis = NANOSECONDS.toMillis(nanos);
+        if (MILLISECONDS.toNanos(millis) < nanos) {
+            millis++;
         }
+
+        return (int) Math.min(millis, Integer.MAX_VALUE);
     }
 
-    private static class WorkWrapper implements Work {
-        private final Runnable runnable;
+    /**
+     * The future, the Work that runs it and the WorkListener that completes it from the WorkManager's events for the
+     * cases where it never gets run, all in one object so that a submission allocates as little as possible.
+     */
+    private static final class WorkItemFuture<T> extends CompactFutureTask<T> implements Work, WorkListener {
+        final WorkManagerWorkExecutor owner;
+        volatile WorkItem workItem;
+
+        WorkItemFuture(WorkManagerWorkExecutor owner, Callable<T> callable) {
+            super(callable);
+            this.owner = owner;
+        }
 
-        WorkWrapper(Runnable runnable) {
-            this.runnable = runnable;
+        WorkItemFuture(WorkManagerWorkExecutor owner, Runnable runnable, T result) {
+            super(runnable, result);
+            this.owner = owner;
         }
 
+        void fail(Throwable t) {
+            setException(t);
+        }
+
+        /**
+         * The container wants this Work to stop (e.g. the application is stopping): cancel it, interrupting it if it's
+         * running, so that its thread goes back to the WorkManager.
+         */
         @Override
         public void release() {
+            cancel(true);
+        }
+
+        @Override
+        public void workAccepted(WorkEvent event) {
+            // no op
+        }
+
+        @Override
+        public void workRejected(WorkEvent event) {
+            fail(new RejectedWorkException("WorkManager rejected Work", event.getException()));
+        }
+
+        @Override
+        public void workStarted(WorkEvent event) {
             // no op
         }
 
+        @Override
+        public void workCompleted(WorkEvent event) {
+            if (!isDone()) {
+                fail(new IllegalStateException("WorkManager completed Work without running it",
+                        event.getException()));
+            }
+        }
+    }
+
+    /**
+     * A batch of futures shared between several carriers. Carriers claim futures one at a time from a shared cursor,
+     * so a carrier stuck on a slow task doesn't hold up the rest of the batch.
+     */
+    private static final class Batch {
+        private final List<? extends Future<?>> futures;
+        private final AtomicInteger cursor = new AtomicInteger();
+        private final AtomicInteger liveCarriers;
+
+        Batch(List<? extends Future<?>> futures, int carriers) {
+            this.futures = futures;
+            this.liveCarriers = new AtomicInteger(carriers);
+        }
+
+        void runRemaining(Carrier carrier) {
+            int i;
+            while (!carrier.released && (i = cursor.getAndIncrement()) < futures.size()) {
+                WorkItemFuture<?> future = (WorkItemFuture<?>) futures.get(i);
+                carrier.current = future;
+                if (carrier.released) {
+                    // release() may have looked for something to cancel before we claimed this
+                    future.cancel(false);
+                    return;
+                }
+                future.run();
+            }
+        }
+
+        /**
+         * @return true if that was the last carrier, so that nothing still unclaimed will ever run
+         */
+        boolean carrierGone() {
+            return liveCarriers.decrementAndGet() == 0;
+        }
+
+        /**
+         * @param failure what to fail every unclaimed future with, or null to cancel them
+         */
+        void abandonUnclaimed(@Nullable Throwable failure) {
+            int i;
+            while ((i = cursor.getAndIncrement()) < futures.size()) {
+                WorkItemFuture<?> future = (WorkItemFuture<?>) futures.get(i);
+                if (failure == null) {
+                    future.cancel(false);
+                } else {
+                    future.fail(failure);
+                }
+            }
+        }
+    }
+
+    private static final class Carrier implements Work, WorkListener {
+        private final Batch batch;
+        private final AtomicBoolean gone = new AtomicBoolean();
+        volatile WorkItemFuture<?> current;
+        volatile boolean released;
+
+        Carrier(Batch batch) {
+            this.batch = batch;
+        }
+
+        /**
+         * Stop claiming, interrupt whatever this carrier is running, and leave the rest of the batch to the other
+         * carriers (or cancel it, if there are none left).
+         */
+        @Override
+        public void release() {
+            released = true;
+            WorkItemFuture<?> future = current;
+            if (future != null) {
+                future.cancel(true);
+            }
+            if (leave()) {
+                // the container is winding down the last carrier
+                batch.abandonUnclaimed(null);
+            }
+        }
+
         @Override
         public void run() {
-            runnable.run();
+            batch.runRemaining(this);
+        }
+
+        @Override
+        public void workAccepted(WorkEvent event) {
+            // no op
+        }
+
+        @Override
+        public void workRejected(@Nullable WorkEvent event) {
+            if (leave()) {
+                batch.abandonUnclaimed(new RejectedWorkException("WorkManager rejected Work",
+                        event == null ? null : event.getException()));
+            }
+        }
+
+        @Override
+        public void workStarted(WorkEvent event) {
+            // no op
+        }
+
+        /**
+         * Normally the batch has been fully claimed by now, but the container may also complete a carrier it never
+         * ran.
+         */
+        @Override
+        public void workCompleted(WorkEvent event) {
+            if (leave()) {
+                batch.abandonUnclaimed(new IllegalStateException("WorkManager completed Work without running it",
+                        event.getException()));
+            }
+        }
+
+        /**
+         * A carrier leaves the batch once, however many of release, rejection and completion the container sends.
+         *
+         * @return true if this was the last carrier to leave
+         */
+        private boolean leave() {
+            return gone.compareAndSet(false, true) && batch.carrierGone();
         }
     }
 }
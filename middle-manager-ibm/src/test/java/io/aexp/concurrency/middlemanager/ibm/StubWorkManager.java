@@ -0,0 +1,294 @@
+package io.aexp.concurrency.middlemanager.ibm;
+
+import com.ibm.websphere.asynchbeans.AsynchScope;
+import com.ibm.websphere.asynchbeans.EventSource;
+import com.ibm.websphere.asynchbeans.Work;
+import com.ibm.websphere.asynchbeans.WorkEvent;
+import com.ibm.websphere.asynchbeans.WorkException;
+import com.ibm.websphere.asynchbeans.WorkItem;
+import com.ibm.websphere.asynchbeans.WorkListener;
+import com.ibm.websphere.asynchbeans.WorkManager;
+import com.ibm.websphere.asynchbeans.WorkRejectedException;
+import com.ibm.websphere.asynchbeans.WorkWithExecutionContext;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Just enough of a WorkManager to run Work on an ExecutorService, report it to a WorkListener, join on it, and release
+ * it the way a container does when an application stops.
+ */
+final class StubWorkManager implements WorkManager {
+
+    private final ExecutorService executorService;
+
+    final AtomicInteger starts = new AtomicInteger();
+    final AtomicInteger joins = new AtomicInteger();
+    /**
+     * Every Work started with a listener, in the order it was started.
+     */
+    final List<Work> started = new CopyOnWriteArrayList<Work>();
+    /**
+     * Report Work as completed without running it, as a container may when it's stopping.
+     */
+    volatile boolean completeWithoutRunning;
+    private final Set<Work> unfinished = Collections.newSetFromMap(new ConcurrentHashMap<Work, Boolean>());
+
+    StubWorkManager(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    @Override
+    public WorkItem startWork(WorkWithExecutionContext workWithExecutionContext) throws WorkException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public WorkItem startWork(WorkWithExecutionContext workWithExecutionContext, boolean b) throws
+            WorkException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public WorkItem startWork(WorkWithExecutionContext workWithExecutionContext, long l,
+            WorkListener workListener) throws WorkException, IllegalArgumentException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public WorkItem startWork(WorkWithExecutionContext workWithExecutionContext, long l,
+            WorkListener workListener,
+            boolean b) throws WorkException, IllegalArgumentException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public WorkItem startWork(Work work) throws WorkException, IllegalArgumentException {
+        // Enough of an impl to limp along; we don't actually use the WorkItem
+        executorService.submit(work);
+        return null;
+    }
+
+    @Override
+    public WorkItem startWork(Work work, boolean b) throws WorkException, IllegalArgumentException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public WorkItem startWork(final Work work, long l, final WorkListener workListener) throws WorkException,
+            IllegalArgumentException {
+        starts.incrementAndGet();
+        final StubWorkItem item = new StubWorkItem(work);
+        final WorkItem proxy = item.asWorkItem();
+        unfinished.add(work);
+        started.add(work);
+        try {
+            executorService.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (!completeWithoutRunning) {
+                            workListener.workStarted(item.event(WorkEvent.WORK_STARTED, proxy, null));
+                            work.run();
+                        }
+                    } finally {
+                        unfinished.remove(work);
+                        item.status = WorkEvent.WORK_COMPLETED;
+                        item.completed.countDown();
+                        workListener.workCompleted(item.event(WorkEvent.WORK_COMPLETED, proxy, null));
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            unfinished.remove(work);
+            item.status = WorkEvent.WORK_REJECTED;
+            item.completed.countDown();
+            workListener.workRejected(item.event(WorkEvent.WORK_REJECTED, proxy,
+                    new WorkRejectedException("executor rejected work")));
+            return proxy;
+        }
+
+        workListener.workAccepted(item.event(WorkEvent.WORK_ACCEPTED, proxy, null));
+        return proxy;
+    }
+
+    /**
+     * Release every Work that has been started with a listener and hasn't finished yet.
+     */
+    void releaseAll() {
+        for (Work work : unfinished) {
+            work.release();
+        }
+    }
+
+    @Override
+    public WorkItem startWork(Work work, long l, WorkListener workListener, boolean b) throws WorkException,
+            IllegalArgumentException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void doWork(WorkWithExecutionContext workWithExecutionContext) throws WorkException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void doWork(WorkWithExecutionContext workWithExecutionContext, WorkListener workListener) throws
+            WorkException, IllegalArgumentException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void doWork(Work work) throws WorkException, IllegalArgumentException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void doWork(Work work, WorkListener workListener) throws WorkException, IllegalArgumentException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean join(ArrayList arrayList, boolean b, int i) {
+        joins.incrementAndGet();
+        long deadline = System.nanoTime() + MILLISECONDS.toNanos(i);
+        while (true) {
+            int completed = 0;
+            for (Object workItem : arrayList) {
+                if (((StubWorkItem) Proxy.getInvocationHandler(workItem)).completed.getCount() == 0) {
+                    completed++;
+                }
+            }
+
+            if (b == JOIN_AND ? completed == arrayList.size() : completed > 0) {
+                return true;
+            }
+
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public WorkWithExecutionContext create(Work work) throws IllegalArgumentException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public EventSource createEventSource() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AsynchScope createAsynchScope(String s) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AsynchScope findAsynchScope(String s) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AsynchScope findOrCreateAsynchScope(String s) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addListener(Object o) throws IllegalArgumentException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addListener(Object o, int i) throws IllegalArgumentException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeListener(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object getEventTrigger(Class aClass) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object getEventTrigger(Class aClass, boolean b) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Backs WorkItem and WorkEvent proxies, since we only need a couple of their methods.
+     */
+    private static final class StubWorkItem implements InvocationHandler {
+        final Work work;
+        final CountDownLatch completed = new CountDownLatch(1);
+        volatile int status = WorkEvent.WORK_ACCEPTED;
+
+        StubWorkItem(Work work) {
+            this.work = work;
+        }
+
+        WorkItem asWorkItem() {
+            return (WorkItem) Proxy.newProxyInstance(WorkItem.class.getClassLoader(), new Class[]{WorkItem.class}, this);
+        }
+
+        WorkEvent event(final int type, final WorkItem item, final WorkException exception) {
+            return (WorkEvent) Proxy.newProxyInstance(WorkEvent.class.getClassLoader(), new Class[]{WorkEvent.class},
+                    new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                            if (method.getName().equals("getType")) {
+                                return type;
+                            }
+                            if (method.getName().equals("getItem")) {
+                                return item;
+                            }
+                            if (method.getName().equals("getException")) {
+                                return exception;
+                            }
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("getStatus")) {
+                return status;
+            }
+            if (method.getName().equals("getResult")) {
+                return work;
+            }
+            if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            throw new UnsupportedOperationException(method.getName());
+        }
+    }
+}
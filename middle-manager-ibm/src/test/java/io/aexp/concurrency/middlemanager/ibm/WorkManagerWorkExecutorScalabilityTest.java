@@ -0,0 +1,21 @@
+package io.aexp.concurrency.middlemanager.ibm;
+
+import io.aexp.concurrency.middlemanager.WorkExecutor;
+import io.aexp.concurrency.middlemanager.WorkExecutorScalabilityTestBase;
+import java.util.concurrent.ExecutorService;
+
+public final class WorkManagerWorkExecutorScalabilityTest extends WorkExecutorScalabilityTestBase {
+
+    @Override
+    protected WorkExecutor getWorkExecutor(ExecutorService executorService) {
+        return new WorkManagerWorkExecutor(new StubWorkManager(executorService));
+    }
+
+    /**
+     * Waits go to {@code WorkManager.join}, and the stub's join polls.
+     */
+    @Override
+    protected boolean waitsOnCompletionListeners() {
+        return false;
+    }
+}
@@ -1,150 +1,363 @@
 package io.aexp.concurrency.middlemanager.ibm;
 
-import com.ibm.websphere.asynchbeans.AsynchScope;
-import com.ibm.websphere.asynchbeans.EventSource;
-import com.ibm.websphere.asynchbeans.Work;
-import com.ibm.websphere.asynchbeans.WorkException;
-import com.ibm.websphere.asynchbeans.WorkItem;
-import com.ibm.websphere.asynchbeans.WorkListener;
 import com.ibm.websphere.asynchbeans.WorkManager;
-import com.ibm.websphere.asynchbeans.WorkWithExecutionContext;
+import io.aexp.concurrency.middlemanager.Deadline;
+import io.aexp.concurrency.middlemanager.DeadlineExceededException;
+import io.aexp.concurrency.middlemanager.DeadlineWorkExecutor;
+import io.aexp.concurrency.middlemanager.IndexedWork;
+import io.aexp.concurrency.middlemanager.OverloadPolicy;
+import io.aexp.concurrency.middlemanager.ParallelLoops;
+import io.aexp.concurrency.middlemanager.PriorityWorkExecutor;
+import io.aexp.concurrency.middlemanager.RejectedWorkException;
+import io.aexp.concurrency.middlemanager.SchedulingWorkExecutor;
 import io.aexp.concurrency.middlemanager.WorkExecutor;
 import io.aexp.concurrency.middlemanager.WorkExecutorTestBase;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public final class WorkManagerWorkExecutorTest extends WorkExecutorTestBase {
 
     @Override
     protected WorkExecutor getWorkExecutor() {
-        return new WorkManagerWorkExecutor(new WorkManager() {
+        return new WorkManagerWorkExecutor(new StubWorkManager(Executors.newCachedThreadPool()));
+    }
 
-            private final ExecutorService executorService = Executors.newCachedThreadPool();
+    @Test
+    public void testWaitForAllUsesJoin() {
+        StubWorkManager workManager = new StubWorkManager(Executors.newCachedThreadPool());
+        WorkExecutor executor = new WorkManagerWorkExecutor(workManager);
 
-            @Override
-            public WorkItem startWork(WorkWithExecutionContext workWithExecutionContext) throws WorkException {
-                throw new UnsupportedOperationException();
-            }
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        futures.add(executor.submit(new Sleep(50)));
+        futures.add(executor.submit(new Sleep(50)));
 
-            @Override
-            public WorkItem startWork(WorkWithExecutionContext workWithExecutionContext, boolean b) throws
-                    WorkException {
-                throw new UnsupportedOperationException();
-            }
+        assertTrue(executor.waitForAllToComplete(futures, 1000, MILLISECONDS));
+        assertEquals(1, workManager.joins.get());
+    }
 
-            @Override
-            public WorkItem startWork(WorkWithExecutionContext workWithExecutionContext, long l,
-                    WorkListener workListener) throws WorkException, IllegalArgumentException {
-                throw new UnsupportedOperationException();
+    @Test
+    public void testScheduledWorkRunsOnWorkManager() throws Exception {
+        StubWorkManager workManager = new StubWorkManager(Executors.newCachedThreadPool());
+        SchedulingWorkExecutor executor = new SchedulingWorkExecutor(new WorkManagerWorkExecutor(workManager));
+
+        executor.schedule(new Sleep(0), 10, MILLISECONDS).get(1, SECONDS);
+
+        assertEquals(1, workManager.starts.get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testSkipsWorkPastItsDeadline() throws Exception {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        DeadlineWorkExecutor executor =
+                new DeadlineWorkExecutor(new WorkManagerWorkExecutor(new StubWorkManager(single)));
+        executor.submit(new Sleep(50));
+
+        Future<Void> stale = executor.submit(new Sleep(0), Deadline.after(10, MILLISECONDS));
+
+        try {
+            stale.get(1, SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof DeadlineExceededException);
+        }
+        single.shutdown();
+    }
+
+    @Test
+    public void testSubmitAllPacksBatchIntoCarriers() throws ExecutionException, InterruptedException {
+        StubWorkManager workManager = new StubWorkManager(Executors.newCachedThreadPool());
+        WorkExecutor executor = new WorkManagerWorkExecutor(workManager, WorkManager.INDEFINITE, 4);
+
+        List<Callable<Void>> callables = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < 1000; i++) {
+            callables.add(new Sleep(0));
+        }
+
+        List<Future<Void>> futures = executor.submitAll(callables);
+
+        assertEquals(1000, futures.size());
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+        assertEquals(4, workManager.starts.get());
+    }
+
+    @Test
+    public void testSubmitAllFailsBatchWhenEveryCarrierIsRejected() throws InterruptedException {
+        ExecutorService executorService = Executors.newCachedThreadPool();
+        executorService.shutdown();
+        WorkExecutor executor = new WorkManagerWorkExecutor(new StubWorkManager(executorService),
+                WorkManager.INDEFINITE, 2);
+
+        List<Future<Void>> futures = executor.submitAll(Arrays.asList(new Sleep(0), new Sleep(0), new Sleep(0)));
+
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedWorkException);
             }
+        }
+    }
+
+    @Test
+    public void testRejectedWorkFailsFuture() throws InterruptedException {
+        ExecutorService executorService = Executors.newCachedThreadPool();
+        executorService.shutdown();
+        WorkExecutor executor = new WorkManagerWorkExecutor(new StubWorkManager(executorService));
 
+        Future<Void> f = executor.submit(new Sleep(0));
+
+        try {
+            f.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedWorkException);
+        }
+    }
+
+    @Test
+    public void testParallelLoopFailsWhenItsWorkersAreRejected() throws InterruptedException {
+        ExecutorService executorService = Executors.newCachedThreadPool();
+        executorService.shutdown();
+        WorkExecutor executor = new WorkManagerWorkExecutor(new StubWorkManager(executorService));
+
+        // the WorkManager reports the rejection through the listener, so submitting doesn't throw
+        Future<Void> loop = ParallelLoops.parallelFor(executor, 4, 0, 100, new IndexedWork() {
             @Override
-            public WorkItem startWork(WorkWithExecutionContext workWithExecutionContext, long l,
-                    WorkListener workListener,
-                    boolean b) throws WorkException, IllegalArgumentException {
-                throw new UnsupportedOperationException();
+            public void run(int index) {
+                // no op
             }
+        });
 
+        try {
+            loop.get(1, SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedWorkException);
+        } catch (TimeoutException e) {
+            fail("loop waited forever on workers that never ran");
+        }
+    }
+
+    @Test
+    public void testReleaseCancelsWorkAndFreesItsThread() throws Exception {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        StubWorkManager workManager = new StubWorkManager(single);
+        WorkExecutor executor = new WorkManagerWorkExecutor(workManager);
+        final CountDownLatch started = new CountDownLatch(1);
+        Future<Void> released = executor.submit(new Callable<Void>() {
             @Override
-            public WorkItem startWork(Work work) throws WorkException, IllegalArgumentException {
-                // Enough of an impl to limp along; we don't actually use the WorkItem
-                executorService.submit(work);
+            public Void call() throws Exception {
+                started.countDown();
+                Thread.sleep(10000);
                 return null;
             }
+        });
+        started.await();
 
-            @Override
-            public WorkItem startWork(Work work, boolean b) throws WorkException, IllegalArgumentException {
-                throw new UnsupportedOperationException();
-            }
+        workManager.releaseAll();
 
-            @Override
-            public WorkItem startWork(Work work, long l, WorkListener workListener) throws WorkException,
-                    IllegalArgumentException {
-                throw new UnsupportedOperationException();
-            }
+        assertTrue(released.isCancelled());
+        // the WorkManager's only thread is free again
+        executor.submit(new Sleep(0)).get(1, SECONDS);
+        single.shutdown();
+    }
 
-            @Override
-            public WorkItem startWork(Work work, long l, WorkListener workListener, boolean b) throws WorkException,
-                    IllegalArgumentException {
-                throw new UnsupportedOperationException();
-            }
+    @Test
+    public void testReleasingLastCarrierCancelsRestOfBatch() throws Exception {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        StubWorkManager workManager = new StubWorkManager(single);
+        WorkExecutor executor = new WorkManagerWorkExecutor(workManager, WorkManager.INDEFINITE, 1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicInteger ran = new AtomicInteger();
+        List<Callable<Void>> callables = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < 3; i++) {
+            callables.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    ran.incrementAndGet();
+                    started.countDown();
+                    Thread.sleep(10000);
+                    return null;
+                }
+            });
+        }
 
-            @Override
-            public void doWork(WorkWithExecutionContext workWithExecutionContext) throws WorkException {
-                throw new UnsupportedOperationException();
-            }
+        List<Future<Void>> futures = executor.submitAll(callables);
+        started.await();
+        workManager.releaseAll();
 
-            @Override
-            public void doWork(WorkWithExecutionContext workWithExecutionContext, WorkListener workListener) throws
-                    WorkException, IllegalArgumentException {
-                throw new UnsupportedOperationException();
-            }
+        for (Future<Void> future : futures) {
+            assertTrue(future.isCancelled());
+        }
+        executor.submit(new Sleep(0)).get(1, SECONDS);
+        assertEquals(1, ran.get());
+        single.shutdown();
+    }
 
-            @Override
-            public void doWork(Work work) throws WorkException, IllegalArgumentException {
-                throw new UnsupportedOperationException();
-            }
+    @Test
+    public void testPriorityFrontQueueRunsUrgentWorkFirst() throws Exception {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        PriorityWorkExecutor executor = new PriorityWorkExecutor(
+                new WorkManagerWorkExecutor(new StubWorkManager(single)), 2, 1, 10, OverloadPolicy.FAIL_FAST, 1, HOURS);
+        final List<String> ran = new CopyOnWriteArrayList<String>();
+        Future<Void> busy = executor.submit(new Sleep(50));
 
-            @Override
-            public void doWork(Work work, WorkListener workListener) throws WorkException, IllegalArgumentException {
-                throw new UnsupportedOperationException();
-            }
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (String name : Arrays.asList("bulk", "urgent")) {
+            final String task = name;
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    ran.add(task);
+                    return null;
+                }
+            }, "urgent".equals(name) ? 1 : 0));
+        }
 
-            @Override
-            public boolean join(ArrayList arrayList, boolean b, int i) {
-                throw new UnsupportedOperationException();
-            }
+        busy.get(1, SECONDS);
+        assertTrue(executor.waitForAllToComplete(futures, 1, SECONDS));
+        assertEquals(Arrays.asList("urgent", "bulk"), ran);
+        single.shutdown();
+    }
 
-            @Override
-            public WorkWithExecutionContext create(Work work) throws IllegalArgumentException {
-                throw new UnsupportedOperationException();
-            }
+    @Test
+    public void testInterruptedWaiterDoesNotJoin() {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        StubWorkManager workManager = new StubWorkManager(single);
+        WorkExecutor executor = new WorkManagerWorkExecutor(workManager);
+        executor.submit(new Sleep(2000));
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        futures.add(executor.submit(new Sleep(0)));
 
-            @Override
-            public EventSource createEventSource() {
-                throw new UnsupportedOperationException();
-            }
+        Thread.currentThread().interrupt();
+        long start = System.nanoTime();
+        boolean completed = executor.waitForAllToComplete(futures, 5, SECONDS);
+        boolean interrupted = Thread.interrupted();
 
-            @Override
-            public AsynchScope createAsynchScope(String s) {
-                throw new UnsupportedOperationException();
-            }
+        assertTrue(!completed && interrupted);
+        assertTrue(System.nanoTime() - start < SECONDS.toNanos(1));
+        assertEquals(0, workManager.joins.get());
+        single.shutdownNow();
+    }
 
-            @Override
-            public AsynchScope findAsynchScope(String s) {
-                throw new UnsupportedOperationException();
-            }
+    @Test
+    public void testCancellingQueuedWorkWakesJoin() throws Exception {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        WorkExecutor executor = new WorkManagerWorkExecutor(new StubWorkManager(single));
+        executor.submit(new Sleep(2000));
+        final Future<Void> queued = executor.submit(new Sleep(0));
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        futures.add(queued);
 
+        Thread canceller = new Thread(new Runnable() {
             @Override
-            public AsynchScope findOrCreateAsynchScope(String s) {
-                throw new UnsupportedOperationException();
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                queued.cancel(false);
             }
+        });
+        canceller.start();
 
-            @Override
-            public void addListener(Object o) throws IllegalArgumentException {
-                throw new UnsupportedOperationException();
-            }
+        long start = System.nanoTime();
+        assertTrue(executor.waitForAnyToComplete(futures, 5, SECONDS));
+        assertTrue(System.nanoTime() - start < SECONDS.toNanos(1));
+        canceller.join();
+        single.shutdownNow();
+    }
 
-            @Override
-            public void addListener(Object o, int i) throws IllegalArgumentException {
-                throw new UnsupportedOperationException();
-            }
+    @Test
+    public void testBatchFailsWhenCarriersCompleteWithoutRunning() throws InterruptedException {
+        StubWorkManager workManager = new StubWorkManager(Executors.newCachedThreadPool());
+        workManager.completeWithoutRunning = true;
+        WorkExecutor executor = new WorkManagerWorkExecutor(workManager, WorkManager.INDEFINITE, 2);
 
-            @Override
-            public void removeListener(Object o) {
-                throw new UnsupportedOperationException();
-            }
+        List<Future<Void>> futures = executor.submitAll(Arrays.asList(new Sleep(0), new Sleep(0), new Sleep(0)));
 
-            @Override
-            public Object getEventTrigger(Class aClass) {
-                throw new UnsupportedOperationException();
+        for (Future<Void> future : futures) {
+            try {
+                future.get(1, SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            } catch (TimeoutException e) {
+                fail("unclaimed futures were stranded");
             }
+        }
+    }
 
-            @Override
-            public Object getEventTrigger(Class aClass, boolean b) {
-                throw new UnsupportedOperationException();
+    @Test
+    public void testReleasingCarrierTwiceLeavesRestOfBatchToOthers() throws Exception {
+        StubWorkManager workManager = new StubWorkManager(Executors.newFixedThreadPool(2));
+        WorkExecutor executor = new WorkManagerWorkExecutor(workManager, WorkManager.INDEFINITE, 2);
+        final CountDownLatch gate = new CountDownLatch(1);
+        final CountDownLatch claimed = new CountDownLatch(2);
+        List<Callable<Void>> callables = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < 4; i++) {
+            callables.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    claimed.countDown();
+                    gate.await();
+                    return null;
+                }
+            });
+        }
+
+        List<Future<Void>> futures = executor.submitAll(callables);
+        assertTrue(claimed.await(1, SECONDS));
+        workManager.started.get(0).release();
+        workManager.started.get(0).release();
+        gate.countDown();
+
+        int cancelled = 0;
+        for (Future<Void> future : futures) {
+            if (future.isCancelled()) {
+                cancelled++;
+            } else {
+                future.get(1, SECONDS);
             }
-        });
+        }
+        // only the task the released carrier was running
+        assertEquals(1, cancelled);
+    }
+
+    private static class Sleep implements Callable<Void> {
+        private final int millis;
+
+        Sleep(int millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            Thread.sleep(millis);
+            return null;
+        }
     }
 }
@@ -0,0 +1,90 @@
+package io.aexp.concurrency.middlemanager.jdk21;
+
+import io.aexp.concurrency.middlemanager.ListenableWorkExecutor;
+import io.aexp.concurrency.middlemanager.ListenableWorkFuture;
+import io.aexp.concurrency.middlemanager.NotifyingFutureTask;
+import io.aexp.concurrency.middlemanager.WorkExecutorBase;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * WorkExecutor that runs each task on its own virtual thread, for work that spends most of its time blocked on I/O and
+ * would otherwise need a very large thread pool.
+ *
+ * Concurrency can optionally be capped: tasks beyond the cap still get their virtual thread right away, but it parks
+ * on a semaphore until a permit frees up, so nothing queues up in front of the executor.
+ *
+ * The inherited waitFor* methods block on java.util.concurrent primitives rather than monitors, so calling them from a
+ * virtual thread (including from inside a task) parks it without pinning its carrier thread.
+ */
+@ThreadSafe
+public final class VirtualThreadWorkExecutor extends WorkExecutorBase implements ListenableWorkExecutor {
+    private final ThreadFactory threadFactory;
+    @Nullable
+    private final Semaphore permits;
+
+    /**
+     * Run every task as soon as it's submitted.
+     */
+    public VirtualThreadWorkExecutor() {
+        this.threadFactory = newThreadFactory();
+        this.permits = null;
+    }
+
+    /**
+     * @param maxConcurrency the most tasks that may run at once
+     */
+    public VirtualThreadWorkExecutor(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+
+        this.threadFactory = newThreadFactory();
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    @Nonnull
+    @Override
+    public <T extends Runnable> ListenableWorkFuture<T> submit(T runnable) {
+        NotifyingFutureTask<T> future = new NotifyingFutureTask<T>(runnable, runnable);
+        start(future);
+        return future;
+    }
+
+    @Nonnull
+    @Override
+    public <T> ListenableWorkFuture<T> submit(Callable<T> callable) {
+        NotifyingFutureTask<T> future = new NotifyingFutureTask<T>(callable);
+        start(future);
+        return future;
+    }
+
+    private void start(final NotifyingFutureTask<?> future) {
+        if (permits == null) {
+            threadFactory.newThread(future).start();
+            return;
+        }
+
+        threadFactory.newThread(() -> {
+            if (future.isDone()) {
+                // cancelled before it got a thread; don't wait for a permit only to do nothing with it
+                return;
+            }
+
+            permits.acquireUninterruptibly();
+            try {
+                future.run();
+            } finally {
+                permits.release();
+            }
+        }).start();
+    }
+
+    private static ThreadFactory newThreadFactory() {
+        return Thread.ofVirtual().name("middle-manager-virtual-", 0).factory();
+    }
+}
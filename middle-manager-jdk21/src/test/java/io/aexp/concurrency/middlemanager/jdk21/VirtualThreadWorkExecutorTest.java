@@ -0,0 +1,65 @@
+package io.aexp.concurrency.middlemanager.jdk21;
+
+import io.aexp.concurrency.middlemanager.WorkExecutor;
+import io.aexp.concurrency.middlemanager.WorkExecutorTestBase;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class VirtualThreadWorkExecutorTest extends WorkExecutorTestBase {
+
+    @Override
+    protected WorkExecutor getWorkExecutor() {
+        return new VirtualThreadWorkExecutor();
+    }
+
+    @Test
+    public void testRunsOnVirtualThreads() throws Exception {
+        Future<Boolean> future = new VirtualThreadWorkExecutor().submit(
+                (Callable<Boolean>) () -> Thread.currentThread().isVirtual());
+
+        assertTrue(future.get());
+    }
+
+    @Test
+    public void testManyConcurrentBlockingTasks() {
+        WorkExecutor executor = new VirtualThreadWorkExecutor();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            futures.add(executor.submit((Callable<Void>) () -> {
+                Thread.sleep(100);
+                return null;
+            }));
+        }
+
+        // sequentially this would take over 16 minutes
+        assertTrue(executor.waitForAllToComplete(futures, 10, SECONDS));
+    }
+
+    @Test
+    public void testConcurrencyCap() {
+        WorkExecutor executor = new VirtualThreadWorkExecutor(3);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            futures.add(executor.submit((Callable<Void>) () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(10);
+                running.decrementAndGet();
+                return null;
+            }));
+        }
+
+        assertTrue(executor.waitForAllToComplete(futures, 10, SECONDS));
+        assertEquals(3, maxRunning.get());
+    }
+}
@@ -0,0 +1,80 @@
+package io.aexp.concurrency.middlemanager.jdk8;
+
+import io.aexp.concurrency.middlemanager.ListenableWorkExecutor;
+import io.aexp.concurrency.middlemanager.ListenableWorkFuture;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Bridges {@link ListenableWorkFuture} to {@link CompletableFuture} for code running on Java 8 or newer.
+ */
+@ThreadSafe
+public final class CompletableWorkFutures {
+
+    private CompletableWorkFutures() {
+    }
+
+    /**
+     * @param future future to adapt
+     * @param <T>    result type
+     * @return a CompletableFuture that completes the same way as the provided future. Cancelling it cancels the
+     * provided future too.
+     */
+    @Nonnull
+    public static <T> CompletableFuture<T> toCompletableFuture(@Nonnull ListenableWorkFuture<T> future) {
+        CompletableFuture<T> completableFuture = new CompletableFuture<T>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                future.cancel(mayInterruptIfRunning);
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+
+        future.addCompletionListener(() -> {
+            try {
+                completableFuture.complete(getDone(future));
+            } catch (CancellationException e) {
+                completableFuture.cancel(false);
+            } catch (ExecutionException e) {
+                completableFuture.completeExceptionally(e.getCause());
+            }
+        });
+
+        return completableFuture;
+    }
+
+    /**
+     * Submit a callable and get a CompletableFuture for it.
+     *
+     * @param workExecutor executor to run the callable
+     * @param callable     callable to run
+     * @param <T>          result type
+     * @return a CompletableFuture for the callable's result
+     */
+    @Nonnull
+    public static <T> CompletableFuture<T> supplyAsync(@Nonnull ListenableWorkExecutor workExecutor,
+            @Nonnull Callable<T> callable) {
+        return toCompletableFuture(workExecutor.submit(callable));
+    }
+
+    private static <T> T getDone(ListenableWorkFuture<T> future) throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package io.aexp.concurrency.middlemanager.jdk8;
+
+import io.aexp.concurrency.middlemanager.ListenableWorkExecutor;
+import io.aexp.concurrency.middlemanager.ListenableWorkFuture;
+import io.aexp.concurrency.middlemanager.NotifyingFutureTask;
+import io.aexp.concurrency.middlemanager.RejectedWorkException;
+import io.aexp.concurrency.middlemanager.WorkExecutorBase;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongPredicate;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * WorkExecutor backed by a work-stealing {@link ForkJoinPool}, for nested fan-out/fan-in: tasks that submit subtasks
+ * and then wait for them.
+ *
+ * Work submitted from one of the pool's own workers is forked onto that worker's queue. When a worker calls one of the
+ * waitFor* methods it first helps by running pending tasks itself, and only parks once there's nothing left to help
+ * with, via {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)} so that the pool can start a compensating
+ * thread while it's blocked. Waiting from a worker therefore neither deadlocks nor idles a core, and the pool doesn't
+ * need to be sized for the deepest nesting.
+ *
+ * Helping runs whole tasks, so a waiter may return somewhat after its timeout if the task it helped with was slow.
+ */
+@ThreadSafe
+public final class ForkJoinWorkExecutor extends WorkExecutorBase implements ListenableWorkExecutor {
+    private final ForkJoinPool pool;
+
+    public ForkJoinWorkExecutor(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Nonnull
+    @Override
+    public <T extends Runnable> ListenableWorkFuture<T> submit(T runnable) {
+        NotifyingFutureTask<T> future = new NotifyingFutureTask<T>(runnable, runnable);
+        execute(future);
+        return future;
+    }
+
+    @Nonnull
+    @Override
+    public <T> ListenableWorkFuture<T> submit(Callable<T> callable) {
+        NotifyingFutureTask<T> future = new NotifyingFutureTask<T>(callable);
+        execute(future);
+        return future;
+    }
+
+    @Override
+    public boolean waitForCompletion(Future<?> f, long timeout, TimeUnit unit) {
+        return await(f::isDone, nanos -> super.waitForCompletion(f, nanos, NANOSECONDS), timeout, unit);
+    }
+
+    @Override
+    public boolean waitForAnyToComplete(List<Future<?>> futures, long timeout, TimeUnit unit) {
+        return await(() -> anyDone(futures), nanos -> super.waitForAnyToComplete(futures, nanos, NANOSECONDS),
+                timeout, unit);
+    }
+
+    @Override
+    public boolean waitForAllToComplete(List<Future<?>> futures, long timeout, TimeUnit unit) {
+        return await(() -> allDone(futures), nanos -> super.waitForAllToComplete(futures, nanos, NANOSECONDS),
+                timeout, unit);
+    }
+
+    private void execute(Runnable task) {
+        ForkJoinTask<?> forkJoinTask = new RunnableTask(task);
+        try {
+            if (ForkJoinTask.getPool() == pool) {
+                forkJoinTask.fork();
+            } else {
+                pool.execute(forkJoinTask);
+            }
+        } catch (RejectedExecutionException e) {
+            throw new RejectedWorkException("ForkJoinPool rejected work", e);
+        }
+    }
+
+    /**
+     * @param done    whether waiting is over
+     * @param wait    the inherited wait, given the remaining nanoseconds; also decides the result once done
+     * @param timeout overall timeout
+     * @param unit    unit of timeout
+     */
+    private boolean await(BooleanSupplier done, LongPredicate wait, long timeout, TimeUnit unit) {
+        long deadline = nanoTime() + unit.toNanos(timeout);
+        if (ForkJoinTask.getPool() == pool) {
+            ForkJoinTask<?> task;
+            while (!done.getAsBoolean() && deadline - nanoTime() > 0 && (task = RunnableTask.pollPending()) != null) {
+                task.quietlyInvoke();
+            }
+        }
+
+        Blocker blocker = new Blocker(done, wait, deadline);
+        try {
+            ForkJoinPool.managedBlock(blocker);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return blocker.result;
+    }
+
+    private static boolean anyDone(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            if (future.isDone()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean allDone(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            if (!future.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Blocker implements ForkJoinPool.ManagedBlocker {
+        private final BooleanSupplier done;
+        private final LongPredicate wait;
+        private final long deadline;
+        boolean result;
+
+        Blocker(BooleanSupplier done, LongPredicate wait, long deadline) {
+            this.done = done;
+            this.wait = wait;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean block() {
+            result = wait.test(Math.max(0, deadline - nanoTime()));
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            if (done.getAsBoolean() || deadline - nanoTime() <= 0) {
+                // let the inherited wait decide what "done" means, e.g. that a cancelled future didn't complete
+                result = wait.test(0);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class RunnableTask extends ForkJoinTask<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final Runnable runnable;
+
+        RunnableTask(Runnable runnable) {
+            this.runnable = runnable;
+        }
+
+        /**
+         * @return a task queued by the current worker, or failing that one stolen from another, or null
+         */
+        static ForkJoinTask<?> pollPending() {
+            return pollTask();
+        }
+
+        @Override
+        public Void getRawResult() {
+            return null;
+        }
+
+        @Override
+        protected void setRawResult(Void value) {
+        }
+
+        @Override
+        protected boolean exec() {
+            runnable.run();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package io.aexp.concurrency.middlemanager.jdk8;
+
+import io.aexp.concurrency.middlemanager.ExecutorServiceWorkExecutor;
+import io.aexp.concurrency.middlemanager.ListenableWorkExecutor;
+import io.aexp.concurrency.middlemanager.ListenableWorkFuture;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class CompletableWorkFuturesTest {
+
+    private final ListenableWorkExecutor workExecutor =
+            new ExecutorServiceWorkExecutor(Executors.newCachedThreadPool());
+
+    @Test
+    public void testCompletesWithResult() throws ExecutionException, InterruptedException {
+        CompletableFuture<Integer> f = CompletableWorkFutures.supplyAsync(workExecutor, () -> 2)
+                .thenApply(i -> i * 21);
+
+        assertEquals(42, (int) f.get());
+    }
+
+    @Test
+    public void testCompletesExceptionally() throws InterruptedException {
+        CompletableFuture<Object> f = CompletableWorkFutures.supplyAsync(workExecutor, () -> {
+            throw new RuntimeException("kaboom");
+        });
+
+        try {
+            f.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals("kaboom", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testCancellationPropagatesToSource() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        ListenableWorkFuture<Void> source = workExecutor.submit((Callable<Void>) () -> {
+            latch.await();
+            return null;
+        });
+
+        CompletableWorkFutures.toCompletableFuture(source).cancel(true);
+
+        assertTrue(source.isCancelled());
+        latch.countDown();
+    }
+}
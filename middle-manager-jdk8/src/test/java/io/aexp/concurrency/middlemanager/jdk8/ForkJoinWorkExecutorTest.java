@@ -0,0 +1,86 @@
+package io.aexp.concurrency.middlemanager.jdk8;
+
+import io.aexp.concurrency.middlemanager.WorkExecutor;
+import io.aexp.concurrency.middlemanager.WorkExecutorTestBase;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class ForkJoinWorkExecutorTest extends WorkExecutorTestBase {
+
+    @Override
+    protected WorkExecutor getWorkExecutor() {
+        // the shared tests park plenty of tasks in Thread.sleep, which the pool can't compensate for
+        return new ForkJoinWorkExecutor(new ForkJoinPool(64));
+    }
+
+    @Test
+    public void testNestedFanOutOnSingleWorker() throws Exception {
+        ForkJoinWorkExecutor executor = new ForkJoinWorkExecutor(new ForkJoinPool(1));
+        AtomicInteger leaves = new AtomicInteger();
+
+        Future<Boolean> root = executor.submit(new FanOut(executor, 3, leaves));
+
+        assertTrue(root.get(5, SECONDS));
+        assertEquals(64, leaves.get());
+    }
+
+    @Test
+    public void testWaitingWorkerRunsSubtasks() throws Exception {
+        ForkJoinWorkExecutor executor = new ForkJoinWorkExecutor(new ForkJoinPool(1));
+
+        Future<Boolean> outer = executor.submit((Callable<Boolean>) () -> {
+            Thread waiter = Thread.currentThread();
+            List<Future<?>> subtasks = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                subtasks.add(executor.submit((Callable<Boolean>) () -> Thread.currentThread() == waiter));
+            }
+
+            if (!executor.waitForAllToComplete(subtasks, 1, SECONDS)) {
+                return false;
+            }
+            for (Future<?> subtask : subtasks) {
+                if (!(Boolean) subtask.get()) {
+                    return false;
+                }
+            }
+            return true;
+        });
+
+        assertTrue(outer.get(5, SECONDS));
+    }
+
+    private static final class FanOut implements Callable<Boolean> {
+        private final WorkExecutor executor;
+        private final int depth;
+        private final AtomicInteger leaves;
+
+        FanOut(WorkExecutor executor, int depth, AtomicInteger leaves) {
+            this.executor = executor;
+            this.depth = depth;
+            this.leaves = leaves;
+        }
+
+        @Override
+        public Boolean call() {
+            if (depth == 0) {
+                leaves.incrementAndGet();
+                return true;
+            }
+
+            List<Future<?>> children = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                children.add(executor.submit(new FanOut(executor, depth - 1, leaves)));
+            }
+            return executor.waitForAllToComplete(children, 5, SECONDS);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package io.aexp.concurrency.middlemanager;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that joining a list of futures costs the same no matter how long the list is.
+ *
+ * Join latency here is the time between the last task in the list finishing and {@link
+ * WorkExecutor#waitForAllToComplete(List, long, TimeUnit)} returning. Everything before that (submission, running the
+ * tasks) is inherently linear in the list size and isn't counted. Latency alone can't tell a single wakeup from a
+ * wakeup per future when the futures complete faster than the waiter can look at them, so the waiter's parks are
+ * counted too, with the futures completing one at a time.
+ */
+public abstract class WorkExecutorScalabilityTestBase {
+
+    private static final int[] LIST_SIZES = {10, 1000, 100000};
+
+    /**
+     * Generous enough to absorb scheduler and GC noise, but much less than what a walk over 100k futures with a
+     * park/unpark per future would take.
+     */
+    private static final long FLATNESS_TOLERANCE_NANOS = NANOSECONDS.convert(50, MILLISECONDS);
+
+    /**
+     * @param executorService the executor that should ultimately run submitted work
+     * @return a work executor that runs its work on the provided executor
+     */
+    protected abstract WorkExecutor getWorkExecutor(ExecutorService executorService);
+
+    /**
+     * @return true if the executor waits for futures through their completion listeners, rather than handing the wait
+     * to something else (like a WorkManager's join) whose wakeups aren't its own
+     */
+    protected boolean waitsOnCompletionListeners() {
+        return true;
+    }
+
+    @Test
+    public void testWaitForAllJoinLatencyIsFlatInListSize() throws InterruptedException {
+        // warm up
+        measureJoinLatencyNanos(LIST_SIZES[LIST_SIZES.length - 1]);
+
+        long baseline = measureJoinLatencyNanos(LIST_SIZES[0]);
+        for (int size : LIST_SIZES) {
+            long latency = measureJoinLatencyNanos(size);
+            assertTrue("join latency for " + size + " futures was " + latency + "ns vs " + baseline + "ns for "
+                    + LIST_SIZES[0], latency - baseline < FLATNESS_TOLERANCE_NANOS);
+        }
+    }
+
+    @Test
+    public void testWaitForAllParksOnceWhileFuturesCompleteOneByOne() throws InterruptedException {
+        if (!waitsOnCompletionListeners()) {
+            return;
+        }
+
+        int size = 100;
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            WorkExecutor workExecutor = getWorkExecutor(executorService);
+
+            // each task holds the only worker until it gets a permit, so the futures complete in list order, one per
+            // permit
+            final Semaphore permits = new Semaphore(0);
+            final List<Future<?>> futures = new ArrayList<Future<?>>(size);
+            for (int i = 0; i < size; i++) {
+                futures.add(workExecutor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        permits.acquire();
+                        return null;
+                    }
+                }));
+            }
+
+            final WorkExecutor waitingExecutor = workExecutor;
+            final AtomicLong parks = new AtomicLong(-1);
+            Thread waiter = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+                    long id = Thread.currentThread().getId();
+                    long before = threads.getThreadInfo(id).getWaitedCount();
+                    if (waitingExecutor.waitForAllToComplete(futures, 60, SECONDS)) {
+                        parks.set(threads.getThreadInfo(id).getWaitedCount() - before);
+                    }
+                }
+            });
+            waiter.start();
+            awaitParked(waiter);
+
+            // give the waiter time to wake up and park again between completions, as it would if it waited on the
+            // futures one at a time
+            for (Future<?> future : futures) {
+                permits.release();
+                while (!future.isDone()) {
+                    Thread.sleep(1);
+                }
+                Thread.sleep(1);
+                awaitParked(waiter);
+            }
+            waiter.join();
+
+            assertTrue("did not join " + size + " futures", parks.get() >= 0);
+            assertTrue("waiter parked " + parks.get() + " times for " + size + " futures", parks.get() <= 3);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private long measureJoinLatencyNanos(int size) throws InterruptedException {
+        // One worker thread, held by a gate task while the list is queued up behind it, so the waiter is parked
+        // before any of the futures in the list complete.
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            WorkExecutor workExecutor = getWorkExecutor(executorService);
+
+            final CountDownLatch gate = new CountDownLatch(1);
+            workExecutor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    gate.await();
+                    return null;
+                }
+            });
+
+            final AtomicLong lastTaskFinished = new AtomicLong();
+            final List<Future<?>> futures = new ArrayList<Future<?>>(size);
+            for (int i = 0; i < size; i++) {
+                futures.add(workExecutor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        lastTaskFinished.set(System.nanoTime());
+                        return null;
+                    }
+                }));
+            }
+
+            final WorkExecutor waitingExecutor = workExecutor;
+            final AtomicLong joined = new AtomicLong();
+            Thread waiter = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    if (waitingExecutor.waitForAllToComplete(futures, 60, SECONDS)) {
+                        joined.set(System.nanoTime());
+                    }
+                }
+            });
+            waiter.start();
+
+            awaitParked(waiter);
+
+            gate.countDown();
+            waiter.join();
+
+            assertTrue("did not join " + size + " futures", joined.get() != 0);
+            return joined.get() - lastTaskFinished.get();
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static void awaitParked(Thread waiter) throws InterruptedException {
+        while (waiter.isAlive() && waiter.getState() != Thread.State.TIMED_WAITING
+                && waiter.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+    }
+}
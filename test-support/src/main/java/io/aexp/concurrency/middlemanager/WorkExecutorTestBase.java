@@ -1,15 +1,21 @@
 package io.aexp.concurrency.middlemanager;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import org.junit.Test;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
@@ -99,6 +105,71 @@ public abstract class WorkExecutorTestBase {
         assertFalse(workExecutor.waitForCompletion(f, 100, MILLISECONDS));
     }
 
+    @Test
+    public void testCancelInterruptsRunningWork() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        Future<Void> f = workExecutor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                started.countDown();
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+                return null;
+            }
+        });
+
+        started.await();
+
+        assertTrue(f.cancel(true));
+        assertTrue(f.isCancelled());
+        assertTrue(interrupted.await(1000, MILLISECONDS));
+    }
+
+    @Test
+    public void testCancelInterruptDoesNotLeakIntoLaterWork() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        Future<?> cancelled = workExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                // ignore the interrupt, so that it's still set when the task returns
+                while (finish.getCount() > 0) {
+                    Thread.yield();
+                }
+                finished.countDown();
+            }
+        });
+
+        started.await();
+        assertTrue(cancelled.cancel(true));
+        finish.countDown();
+        assertTrue(finished.await(1000, MILLISECONDS));
+
+        // the cancelled task's thread is free to run more work, and shouldn't bring the interrupt with it
+        final AtomicInteger sawInterrupt = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(workExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    if (Thread.currentThread().isInterrupted()) {
+                        sawInterrupt.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        assertTrue(workExecutor.waitForAllToComplete(futures, 1000, MILLISECONDS));
+        assertEquals(0, sawInterrupt.get());
+    }
+
     @Test
     public void testFutureThrowsExecutionExceptionOnFailure() throws InterruptedException {
         Future<?> f = getFailedFuture();
@@ -218,6 +289,189 @@ public abstract class WorkExecutorTestBase {
         assertFalse(workExecutor.waitForAnyToComplete(list(slow, slow2), 100, MILLISECONDS));
     }
 
+    @Test
+    public void testWaitForAnyWakesPromptlyWhenLastOfManyCompletes() {
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(getSleepingFuture(10000));
+        }
+        futures.add(getSleepingFuture(50));
+
+        long start = System.nanoTime();
+        assertTrue(workExecutor.waitForAnyToComplete(futures, 5000, MILLISECONDS));
+
+        // time slicing would have spent 100ms on each of the slow futures before getting to the fast one
+        assertTrue(MILLISECONDS.convert(System.nanoTime() - start, NANOSECONDS) < 1000);
+    }
+
+    @Test
+    public void testSubmitAllReturnsFuturesInOrder() throws ExecutionException, InterruptedException {
+        List<Callable<Integer>> callables = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 100; i++) {
+            final int value = i;
+            callables.add(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return value;
+                }
+            });
+        }
+
+        List<Future<Integer>> futures = workExecutor.submitAll(callables);
+
+        assertEquals(callables.size(), futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i, (int) futures.get(i).get());
+        }
+    }
+
+    @Test
+    public void testInvokeAllReturnsResultsInOrder() throws Exception {
+        List<Callable<Integer>> callables = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 20; i++) {
+            callables.add(new Value(i, 20 - i));
+        }
+
+        List<Integer> results = workExecutor.invokeAll(callables, 1000, MILLISECONDS);
+
+        assertEquals(20, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, (int) results.get(i));
+        }
+    }
+
+    @Test
+    public void testInvokeAllFailsFastAndCancelsTheRest() throws Exception {
+        Hang hang = new Hang();
+        List<Callable<Integer>> callables = new ArrayList<Callable<Integer>>();
+        callables.add(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                Thread.sleep(10);
+                throw new IllegalStateException("kaboom");
+            }
+        });
+        callables.add(hang);
+
+        long start = System.nanoTime();
+        try {
+            workExecutor.invokeAll(callables, 5000, MILLISECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        assertTrue(System.nanoTime() - start < MILLISECONDS.toNanos(1000));
+        assertTrue(hang.stopped());
+    }
+
+    @Test
+    public void testInvokeAllTimesOut() throws Exception {
+        Hang hang = new Hang();
+        List<Callable<Integer>> callables = new ArrayList<Callable<Integer>>();
+        callables.add(new Value(1, 0));
+        callables.add(hang);
+
+        try {
+            workExecutor.invokeAll(callables, 50, MILLISECONDS);
+            fail();
+        } catch (TimeoutException e) {
+            // expected
+        }
+
+        assertTrue(hang.stopped());
+    }
+
+    @Test
+    public void testInvokeAnyReturnsFirstSuccessAndCancelsTheRest() throws Exception {
+        Hang hang = new Hang();
+        List<Callable<Integer>> callables = new ArrayList<Callable<Integer>>();
+        callables.add(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                throw new IllegalStateException("kaboom");
+            }
+        });
+        callables.add(new Value(7, 20));
+        callables.add(hang);
+
+        assertEquals(7, (int) workExecutor.invokeAny(callables, 1000, MILLISECONDS));
+        assertTrue(hang.stopped());
+    }
+
+    @Test
+    public void testInvokeAnyFailsWhenEverythingFails() throws Exception {
+        List<Callable<Integer>> callables = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 2; i++) {
+            callables.add(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    throw new IllegalStateException("kaboom");
+                }
+            });
+        }
+
+        try {
+            workExecutor.invokeAny(callables, 1000, MILLISECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testInvokeFirstReturnsFirstToSucceed() throws Exception {
+        Hang hang = new Hang();
+        List<Callable<Integer>> callables = new ArrayList<Callable<Integer>>();
+        callables.add(new Value(1, 30));
+        callables.add(new Value(2, 0));
+        callables.add(new Value(3, 15));
+        callables.add(hang);
+
+        List<Integer> results = workExecutor.invokeFirst(3, callables, 1000, MILLISECONDS);
+
+        assertEquals(3, results.size());
+        assertTrue(results.containsAll(Arrays.asList(1, 2, 3)));
+        assertTrue(hang.stopped());
+    }
+
+    @Test
+    public void testParallelForVisitsEveryIndexOnce() throws Exception {
+        final AtomicIntegerArray visits = new AtomicIntegerArray(10000);
+        ParallelLoops.parallelFor(workExecutor, 4, 0, visits.length(), new IndexedWork() {
+            @Override
+            public void run(int index) {
+                visits.incrementAndGet(index);
+            }
+        }).get(5, SECONDS);
+
+        for (int i = 0; i < visits.length(); i++) {
+            assertEquals(1, visits.get(i));
+        }
+    }
+
+    @Test
+    public void testMapReduceCombinesEveryInput() throws Exception {
+        List<Integer> inputs = new ArrayList<Integer>();
+        for (int i = 1; i <= 1000; i++) {
+            inputs.add(i);
+        }
+
+        long sumOfSquares = ParallelLoops.mapReduce(workExecutor, 4, inputs, new WorkFunction<Integer, Long>() {
+            @Override
+            public Long apply(Integer input) {
+                return (long) input * input;
+            }
+        }, new WorkReducer<Long>() {
+            @Override
+            public Long reduce(Long left, Long right) {
+                return left + right;
+            }
+        }, 0L).get(5, SECONDS);
+
+        assertEquals(1000L * 1001 * 2001 / 6, sumOfSquares);
+    }
+
     private Future<?> getNoOpFuture() {
         return workExecutor.submit(new StubRunnable());
     }
@@ -266,6 +520,49 @@ public abstract class WorkExecutorTestBase {
         return f;
     }
 
+    private static class Value implements Callable<Integer> {
+        private final int value;
+        private final int sleepMillis;
+
+        Value(int value, int sleepMillis) {
+            this.value = value;
+            this.sleepMillis = sleepMillis;
+        }
+
+        @Override
+        public Integer call() throws Exception {
+            Thread.sleep(sleepMillis);
+            return value;
+        }
+    }
+
+    /**
+     * Runs until interrupted.
+     */
+    private static class Hang implements Callable<Integer> {
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+        private volatile boolean started;
+
+        /**
+         * @return true if this was interrupted, or was cancelled before it got to start
+         */
+        boolean stopped() throws InterruptedException {
+            return !started || interrupted.await(1000, MILLISECONDS);
+        }
+
+        @Override
+        public Integer call() throws Exception {
+            started = true;
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return -1;
+        }
+    }
+
     private static class StubRunnable implements Runnable {
         @Override
         public void run() {